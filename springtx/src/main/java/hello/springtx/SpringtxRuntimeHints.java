@@ -0,0 +1,52 @@
+package hello.springtx;
+
+import hello.springtx.order.Account;
+import hello.springtx.order.ArchivedOrder;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderSummary;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberView;
+import hello.springtx.shard.ShardGuardListener;
+import hello.springtx.tx.TracingTransactionManager;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.data.projection.TargetAware;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+/**
+ * AOT / native image 에서 리플렉션, 프록시로 접근하는 타입을 등록한다.
+ * 엔티티는 하이버네이트가 필드와 생성자, 콜백(@PrePersist) 메서드를 리플렉션으로 사용한다.
+ * JPQL 생성자 projection(select new ...)은 생성자를, 인터페이스 projection 은 JDK 프록시를 사용한다.
+ * @Transactional 서비스의 CGLIB 프록시 클래스는 AOT 빌드 시점에 생성되므로 따로 등록하지 않는다.
+ * 트랜잭션 매니저는 실행 중에 JDK 프록시로 감싼다. (TracingTransactionManager.proxy)
+ * 프록시는 인터페이스 메서드를 리플렉션으로 호출하므로 인터페이스의 public 메서드도 등록한다.
+ */
+public class SpringtxRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> entity : new Class<?>[]{Order.class, Member.class, Account.class}) {
+            hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+        hints.reflection().registerType(ShardGuardListener.class,
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+
+        for (Class<?> view : new Class<?>[]{MemberView.class, ArchivedOrder.class}) {
+            hints.reflection().registerType(view, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(OrderSummary.class, TargetAware.class));
+        hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(OrderRepository.class));
+
+        Class<?>[] txManagerInterfaces = TracingTransactionManager.proxyInterfaces(JpaTransactionManager.class);
+        hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(txManagerInterfaces));
+        for (Class<?> type : txManagerInterfaces) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
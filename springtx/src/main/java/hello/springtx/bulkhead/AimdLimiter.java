@@ -0,0 +1,87 @@
+package hello.springtx.bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD(Additive Increase, Multiplicative Decrease) 동시 실행 한도.
+ * 한도의 절반 이상을 사용 중일 때 성공하면 한도 +1, 지연이 기준을 넘거나 과부하 실패면 한도 × backoffRatio.
+ * 한도가 찬 상태에서는 maxWait 까지 기다리고, 그래도 자리가 없으면 거절한다.
+ */
+public class AimdLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+
+    public AimdLimiter(BulkheadProperties.Limit properties) {
+        this(properties, properties.getMaxLimit());
+    }
+
+    // maxLimit : 설정의 maxLimit 대신 사용할 최대 한도 (커넥션 풀 크기로 계산한 값)
+    public AimdLimiter(BulkheadProperties.Limit properties, int maxLimit) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.minLimit = Math.min(properties.getMinLimit(), this.maxLimit);
+        this.backoffRatio = properties.getBackoffRatio();
+        this.latencyThresholdNanos = properties.getLatencyThreshold().toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, properties.getInitialLimit()));
+    }
+
+    public boolean tryAcquire(Duration maxWait) throws InterruptedException {
+        long remaining = maxWait.toNanos();
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long latencyNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight * 2 >= limit;
+            inFlight--;
+            if (overloaded || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
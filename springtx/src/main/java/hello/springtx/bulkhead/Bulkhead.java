@@ -0,0 +1,19 @@
+package hello.springtx.bulkhead;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 이름별 동시 실행 한도(AIMD)를 적용한다. 같은 이름을 쓰는 메서드는 한도를 공유한다.
+ * 트랜잭션 AOP 바깥에서 실행되므로 대기 중에는 커넥션을 잡고 있지 않는다. (BulkheadAspect)
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+    String value();
+}
@@ -0,0 +1,132 @@
+package hello.springtx.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.springtx.tx.TransactionTimeoutMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * @Bulkhead 메서드의 동시 실행 수를 이름별 AimdLimiter 로 제한한다.
+ * 서비스마다 한도가 따로 있어서 느린 회원 가입(로그 저장)이 몰려도 주문은 커넥션을 얻을 수 있다.
+ *
+ * 트랜잭션 AOP 보다 바깥에서 실행된다. -> 대기, 거절이 커넥션을 얻기 전에 일어난다.
+ * 같은 스레드에서 같은 이름의 bulkhead 에 다시 들어오면 자리를 추가로 쓰지 않는다.
+ *
+ * 한도 × connectionsPerCall 이 (커넥션 풀 크기 - reservedConnections) 를 넘지 않도록 최대 한도를 줄인다.
+ * 풀 크기는 limiter 를 만들 때 한 번 읽는다. (AdaptivePoolSizer 가 풀을 키워도 한도는 그대로)
+ * 샤딩을 사용하면 현재 샤드 풀의 크기를 읽는다. 한 호출은 한 샤드의 커넥션만 쓰고 샤드 풀 크기는 모두 같다.
+ *
+ * springtx.bulkhead.limit / inflight (gauge), springtx.bulkhead.rejected (counter), springtx.bulkhead.wait (timer)
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnProperty(prefix = "springtx.bulkhead", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class BulkheadAspect {
+
+    private final BulkheadProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<DataSource> dataSource;
+    private final Map<String, AimdLimiter> limiters = new ConcurrentHashMap<>();
+    private final ThreadLocal<Set<String>> held = ThreadLocal.withInitial(HashSet::new);
+
+    @Around("@annotation(bulkhead)")
+    public Object limit(ProceedingJoinPoint joinPoint, Bulkhead bulkhead) throws Throwable {
+        String name = bulkhead.value();
+        Set<String> names = held.get();
+        if (names.contains(name)) {
+            return joinPoint.proceed();
+        }
+
+        AimdLimiter limiter = getLimiter(name);
+        long waitStart = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = limiter.tryAcquire(properties.limitFor(name).getMaxWait());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException("bulkhead 대기 중 인터럽트 name=" + name, e);
+        }
+        Timer.builder("springtx.bulkhead.wait").tag("name", name).register(meterRegistry)
+            .record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            Counter.builder("springtx.bulkhead.rejected").tag("name", name).register(meterRegistry).increment();
+            log.warn("bulkhead 거절 name={} limit={} inFlight={}", name, limiter.getLimit(), limiter.getInFlight());
+            throw new BulkheadFullException("bulkhead 한도 초과 name=" + name + " limit=" + limiter.getLimit());
+        }
+
+        names.add(name);
+        long start = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            overloaded = isOverload(e);
+            throw e;
+        } finally {
+            names.remove(name);
+            if (names.isEmpty()) {
+                held.remove();
+            }
+            limiter.release(System.nanoTime() - start, overloaded);
+        }
+    }
+
+    public AimdLimiter getLimiter(String name) {
+        return limiters.computeIfAbsent(name, key -> {
+            AimdLimiter limiter = new AimdLimiter(properties.limitFor(key), maxLimit(key));
+            Gauge.builder("springtx.bulkhead.limit", limiter, AimdLimiter::getLimit).tag("name", key)
+                .register(meterRegistry);
+            Gauge.builder("springtx.bulkhead.inflight", limiter, AimdLimiter::getInFlight).tag("name", key)
+                .register(meterRegistry);
+            return limiter;
+        });
+    }
+
+    private int maxLimit(String name) {
+        BulkheadProperties.Limit limit = properties.limitFor(name);
+        DataSource source = dataSource.getIfAvailable();
+        try {
+            if (source == null || !source.isWrapperFor(HikariDataSource.class)) {
+                return limit.getMaxLimit();
+            }
+            int poolSize = source.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            int poolLimit = (poolSize - limit.getReservedConnections()) / Math.max(1, limit.getConnectionsPerCall());
+            if (poolLimit < limit.getMaxLimit()) {
+                log.info("bulkhead 최대 한도를 커넥션 풀에 맞춤 name={} maxLimit={} poolSize={} reserved={} connectionsPerCall={}",
+                    name, poolLimit, poolSize, limit.getReservedConnections(), limit.getConnectionsPerCall());
+            }
+            return Math.max(1, Math.min(limit.getMaxLimit(), poolLimit));
+        } catch (SQLException e) {
+            log.warn("커넥션 풀 크기 확인 실패 name={}", name, e);
+            return limit.getMaxLimit();
+        }
+    }
+
+    // 비즈니스 예외는 정상 응답으로 본다. 타임아웃, 커넥션 획득 실패만 과부하 신호로 쓴다.
+    private boolean isOverload(Throwable e) {
+        return e instanceof CannotCreateTransactionException || TransactionTimeoutMetrics.isTimeout(e);
+    }
+}
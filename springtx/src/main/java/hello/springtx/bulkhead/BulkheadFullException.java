@@ -0,0 +1,13 @@
+package hello.springtx.bulkhead;
+
+// 동시 실행 한도를 넘었고, 최대 대기 시간 안에 자리가 나지 않았다.
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+
+    public BulkheadFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,47 @@
+package hello.springtx.bulkhead;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "springtx.bulkhead")
+public class BulkheadProperties {
+
+    private boolean enabled = true;
+
+    // 이름별 설정이 없으면 사용한다.
+    private Limit defaults = new Limit();
+
+    // springtx.bulkhead.instances.order.max-limit=20
+    private Map<String, Limit> instances = new HashMap<>();
+
+    public Limit limitFor(String name) {
+        return instances.getOrDefault(name, defaults);
+    }
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        private int initialLimit = 20;
+        private int minLimit = 2;
+        private int maxLimit = 100;
+
+        // 한 번의 호출이 동시에 사용하는 커넥션 수 (예: 회원 가입 = 회원 트랜잭션 + REQUIRES_NEW 로그 = 2)
+        private int connectionsPerCall = 1;
+        // 다른 서비스를 위해 남겨둘 커넥션 수. 한도는 (풀 크기 - reservedConnections) / connectionsPerCall 을 넘지 않는다.
+        private int reservedConnections = 0;
+
+        // 한도가 찼을 때 기다리는 최대 시간. 0 이면 기다리지 않고 바로 거절한다.
+        private Duration maxWait = Duration.ofMillis(50);
+
+        // 이보다 오래 걸리거나 타임아웃, 커넥션 획득 실패가 나면 한도를 줄인다.
+        private Duration latencyThreshold = Duration.ofSeconds(1);
+        private double backoffRatio = 0.9;
+    }
+}
@@ -0,0 +1,339 @@
+package hello.springtx.cache;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.shard.ShardContext;
+import hello.springtx.shard.ShardProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.sql.SQLDataException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * MemberRepository 앞단의 write-behind 캐시 (springtx.member.write-behind.enabled=true)
+ * 켜져 있으면 MemberService 의 가입, 조회가 이 캐시를 거친다.
+ *
+ * 조회 : 메모리 맵 -> 없으면 MemberRepository. 맵은 maxCached 로 제한한다. (flush 대기 중인 회원은 버리지 않는다)
+ * 저장 : (저널 기록) -> 메모리 맵 -> flush 대기 목록. 같은 username 은 한 번만 저장된다.
+ *       트랜잭션 안에서 호출하면 그 트랜잭션이 커밋된 이후에 대기 목록에 넣는다. (롤백된 가입은 저장되지 않는다)
+ * flush : flushInterval 마다 또는 maxBuffer 도달 시 대기 목록을 하나의 트랜잭션으로 batch 저장
+ *        - 데이터 오류(제약 조건 위반, 값 길이 초과)로 실패하면 한 건씩 다시 저장한다.
+ *          그래도 데이터 오류인 회원은 dead letter 저널로 옮기고 캐시에서 뺀다. (ERROR 로그)
+ *        - 그 밖의 실패(커넥션 획득 실패, 타임아웃 등 DB 장애)는 건별로 다시 저장하지 않는다.
+ *          batch 를 그대로 대기 목록에 돌려놓고 retryBackoff 만큼(실패가 이어지면 두 배씩) 쉬었다가 다시 시도한다.
+ *          장애 동안 대기 목록은 maxBuffer 보다 커질 수 있다. (저널에 남아 있으므로 재시작해도 유실되지 않는다)
+ *        - 샤딩을 사용하면 batch 를 username 의 샤드별로 나눠서 샤드마다 따로 저장한다.
+ *
+ * 저장 요청이 반환된 시점에는 아직 DB 에 반영되지 않았다. 최대 flushInterval 만큼 늦게 반영된다.
+ * 장애 시 보장 범위는 Durability 설정을 따른다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "springtx.member.write-behind", name = "enabled", havingValue = "true")
+public class MemberWriteBehindCache {
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate txTemplate;
+    private final WriteBehindProperties properties;
+    private final WriteAheadJournal journal;
+    private final ShardProperties shardProperties;
+
+    private final Map<String, Member> cache = new ConcurrentHashMap<>();
+    private final Map<String, Member> pending = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // save(저널 기록 + 대기 목록 추가)와 drain(저널 교체 + 대기 목록 비우기)이 섞이지 않도록 한다.
+    private final ReadWriteLock drainLock = new ReentrantReadWriteLock();
+    // DB 장애로 flush 를 쉬는 동안 (flushLock 안에서만 바꾼다)
+    private long retryAt;
+    private Duration backoff = Duration.ZERO;
+
+    public MemberWriteBehindCache(MemberRepository memberRepository, PlatformTransactionManager txManager,
+                                  WriteBehindProperties properties, ShardProperties shardProperties) {
+        this.memberRepository = memberRepository;
+        this.shardProperties = shardProperties;
+        this.txTemplate = new TransactionTemplate(txManager);
+        // 가입 트랜잭션의 afterCommit 에서 flush 될 수 있다. -> 끝난 트랜잭션에 참여하지 않도록 항상 새 트랜잭션
+        this.txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+        this.journal = properties.getDurability() == WriteBehindProperties.Durability.NONE ? null
+            : new WriteAheadJournal(properties.getJournalPath(),
+                properties.getDurability() == WriteBehindProperties.Durability.JOURNAL_FSYNC);
+    }
+
+    public Optional<Member> find(String username) {
+        Member cached = cache.get(username);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Member> member = memberRepository.find(username);
+        member.ifPresent(found -> {
+            cache.putIfAbsent(username, found);
+            trim();
+        });
+        return member;
+    }
+
+    // 캐시(저장 대기 포함)에 있는 username 은 DB 를 조회하지 않는다.
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        Set<String> existing = new HashSet<>();
+        List<String> unknown = new ArrayList<>();
+        for (String username : usernames) {
+            if (cache.containsKey(username)) {
+                existing.add(username);
+            } else {
+                unknown.add(username);
+            }
+        }
+        existing.addAll(memberRepository.findExistingUsernames(unknown));
+        return existing;
+    }
+
+    public void save(Member member) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    saveNow(member);
+                }
+            });
+            return;
+        }
+        saveNow(member);
+    }
+
+    private void saveNow(Member member) {
+        enqueue(member);
+        if (pending.size() >= properties.getMaxBuffer()) {
+            flush();
+        }
+        trim();
+    }
+
+    private void enqueue(Member member) {
+        drainLock.readLock().lock();
+        try {
+            if (journal != null) {
+                journal.append(member.getUsername()); // 메모리에 반영하기 전에 먼저 기록
+            }
+            cache.put(member.getUsername(), member);
+            pending.putIfAbsent(member.getUsername(), member); // 같은 username 은 합친다.
+        } finally {
+            drainLock.readLock().unlock();
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    public int cachedCount() {
+        return cache.size();
+    }
+
+    // 데이터 오류로 저장하지 못하고 dead letter 로 옮긴 회원 수
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    // 사용 순서를 추적하지 않는다. 저장 대기 중이 아닌 회원을 90% 까지 임의로 버린다. (다음 조회 때 DB 에서 읽는다)
+    private void trim() {
+        int maxCached = properties.getMaxCached();
+        if (cache.size() <= maxCached) {
+            return;
+        }
+        drainLock.writeLock().lock();
+        try {
+            Iterator<String> iterator = cache.keySet().iterator();
+            while (cache.size() > maxCached * 9 / 10 && iterator.hasNext()) {
+                if (!pending.containsKey(iterator.next())) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            drainLock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${springtx.member.write-behind.flush-interval:200ms}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return; // 다른 스레드가 flush 중
+        }
+        try {
+            if (retryAt != 0 && System.nanoTime() - retryAt < 0) {
+                return; // DB 장애 -> 쉬는 중
+            }
+            List<Member> batch = drain();
+            if (batch.isEmpty()) {
+                return;
+            }
+            byShard(batch).forEach((shard, members) -> ShardContext.runIn(shard, () -> flush(members)));
+            if (journal != null) {
+                journal.completeFlush(); // 다시 저장할 회원은 새 저널에, 버린 회원은 dead letter 에 기록했다.
+            }
+            trim(); // 저장된 회원은 대기 목록에서 빠졌으므로 버릴 수 있다.
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // batch 는 한 샤드의 회원이다.
+    private void flush(List<Member> batch) {
+        try {
+            txTemplate.executeWithoutResult(status -> write(batch));
+            log.info("write-behind flush shard={} size={}", ShardContext.current(), batch.size());
+            recovered();
+        } catch (RuntimeException e) {
+            if (isDataError(e)) {
+                // 한 건 때문에 batch 전체가 계속 실패하지 않도록 한 건씩 다시 저장한다.
+                log.warn("write-behind flush 실패(데이터 오류) -> 건별 저장 size={}", batch.size(), e);
+                writeEach(batch);
+            } else {
+                retryLater(batch, e);
+            }
+        }
+    }
+
+    // 샤드 하나의 트랜잭션은 그 샤드의 회원만 저장할 수 있다. (ShardGuardListener)
+    private Map<Integer, List<Member>> byShard(List<Member> batch) {
+        if (!shardProperties.isEnabled()) {
+            return Map.of(0, batch);
+        }
+        return batch.stream().collect(Collectors.groupingBy(
+            member -> ShardContext.shardOf(member.getUsername(), shardProperties.getCount()), TreeMap::new,
+            Collectors.toList()));
+    }
+
+    // 롤백된 persist 로 id 가 채워졌을 수 있으므로 새 Member 로 다시 만든다.
+    private void writeEach(List<Member> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            String username = batch.get(i).getUsername();
+            try {
+                txTemplate.executeWithoutResult(status -> write(List.of(new Member(username))));
+            } catch (RuntimeException e) {
+                if (!isDataError(e)) {
+                    retryLater(batch.subList(i, batch.size()), e); // 도중에 DB 장애 -> 남은 회원은 다음에
+                    return;
+                }
+                deadLetter(username, e);
+            }
+        }
+        recovered();
+    }
+
+    private void deadLetter(String username, RuntimeException e) {
+        if (journal != null) {
+            journal.deadLetter(username);
+        }
+        cache.remove(username);
+        dropped.increment();
+        log.error("write-behind 저장 실패(데이터 오류) -> dead letter username={}", username, e);
+    }
+
+    private void retryLater(List<Member> members, RuntimeException e) {
+        backoff = backoff.isZero() ? properties.getRetryBackoff()
+            : min(backoff.multipliedBy(2), properties.getMaxRetryBackoff());
+        retryAt = System.nanoTime() + Math.max(1, backoff.toNanos());
+        log.warn("write-behind flush 실패 -> {} 후 다시 시도 size={} ex={}", backoff, members.size(), e.toString());
+        members.forEach(member -> enqueue(new Member(member.getUsername())));
+    }
+
+    private void recovered() {
+        retryAt = 0;
+        backoff = Duration.ZERO;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    // 데이터 자체의 문제. 다시 시도해도 같은 결과다.
+    static boolean isDataError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException
+                || cause instanceof SQLIntegrityConstraintViolationException
+                || cause instanceof SQLDataException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Member> drain() {
+        drainLock.writeLock().lock();
+        try {
+            // 이후의 save 는 새 저널에 기록된다.
+            // 이전 flush 가 중간에 끝나서 남은 회원도 이번에 저장한다. (이미 저장된 회원은 write 에서 건너뛴다)
+            List<String> leftover = journal != null ? journal.rotate() : List.of();
+            Map<String, Member> batch = new LinkedHashMap<>(pending);
+            pending.clear();
+            for (String username : leftover) {
+                cache.putIfAbsent(username, batch.computeIfAbsent(username, Member::new));
+            }
+            return new ArrayList<>(batch.values());
+        } finally {
+            drainLock.writeLock().unlock();
+        }
+    }
+
+    private void write(List<Member> batch) {
+        Set<String> existing = memberRepository.findExistingUsernames(batch.stream().map(Member::getUsername).toList());
+        List<Member> newMembers = batch.stream()
+            .filter(member -> !existing.contains(member.getUsername()))
+            .toList();
+        memberRepository.saveAll(newMembers);
+    }
+
+    @PostConstruct
+    void recover() {
+        if (journal == null) {
+            return;
+        }
+        List<String> usernames = journal.recover();
+        if (!usernames.isEmpty()) {
+            log.info("write-behind 저널 복구 size={}", usernames.size());
+            usernames.forEach(username -> {
+                Member member = new Member(username);
+                cache.putIfAbsent(username, member);
+                pending.putIfAbsent(username, member);
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        flush();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package hello.springtx.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 한 줄에 username 하나를 기록하는 append-only 저널
+ *
+ * flush 시작 시 현재 저널을 .flushing 으로 바꾸고(rotate) 새 저널에 이어서 기록한다.
+ * flush 트랜잭션이 커밋되면 .flushing 파일을 지운다. 장애 후에는 두 파일을 모두 읽어 복구한다.
+ * 저장할 수 없는 회원(데이터 오류)은 .dead 파일(dead letter)로 옮긴다. 복구 대상이 아니다.
+ */
+class WriteAheadJournal {
+
+    private final Path path;
+    private final Path flushingPath;
+    private final Path deadLetterPath;
+    private final boolean fsync;
+    private FileChannel channel;
+
+    WriteAheadJournal(Path path, boolean fsync) {
+        this.path = path;
+        this.flushingPath = path.resolveSibling(path.getFileName() + ".flushing");
+        this.deadLetterPath = path.resolveSibling(path.getFileName() + ".dead");
+        this.fsync = fsync;
+    }
+
+    synchronized void append(String username) {
+        try {
+            channel().write(ByteBuffer.wrap((username + "\n").getBytes(StandardCharsets.UTF_8)));
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("저널 기록 실패 path=" + path, e);
+        }
+    }
+
+    /**
+     * 현재 저널을 .flushing 으로 바꾼다.
+     * 이전 flush 가 중간에 끝나서 .flushing 이 남아 있으면 덮어쓰지 않고 현재 저널을 뒤에 이어 붙인다.
+     * 이때 남아 있던 username 을 반환한다. (대기 목록에서 이미 빠졌으므로 이번 flush 에서 다시 저장해야 한다)
+     */
+    synchronized List<String> rotate() {
+        try {
+            close();
+            if (!Files.exists(flushingPath)) {
+                if (Files.exists(path)) {
+                    Files.move(path, flushingPath, StandardCopyOption.ATOMIC_MOVE);
+                }
+                return List.of();
+            }
+            List<String> leftover = readLines(flushingPath);
+            if (Files.exists(path)) {
+                Files.write(flushingPath, Files.readAllBytes(path), StandardOpenOption.APPEND);
+                Files.delete(path);
+            }
+            return leftover;
+        } catch (IOException e) {
+            throw new UncheckedIOException("저널 교체 실패 path=" + path, e);
+        }
+    }
+
+    synchronized void deadLetter(String username) {
+        try {
+            Files.write(deadLetterPath, (username + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("dead letter 기록 실패 path=" + deadLetterPath, e);
+        }
+    }
+
+    Path getDeadLetterPath() {
+        return deadLetterPath;
+    }
+
+    synchronized void completeFlush() {
+        try {
+            Files.deleteIfExists(flushingPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("저널 정리 실패 path=" + flushingPath, e);
+        }
+    }
+
+    // 아직 DB 에 반영되지 않은 username (flushing -> 현재 저널 순서)
+    // 복구한 내용은 현재 저널 하나로 합쳐서 다시 기록해둔다. (복구 직후 다시 장애가 나도 유실되지 않도록)
+    synchronized List<String> recover() {
+        List<String> usernames = new ArrayList<>();
+        try {
+            close();
+            for (Path file : List.of(flushingPath, path)) {
+                if (Files.exists(file)) {
+                    usernames.addAll(readLines(file));
+                }
+            }
+            if (!usernames.isEmpty()) {
+                Files.write(path, usernames, StandardCharsets.UTF_8);
+            }
+            Files.deleteIfExists(flushingPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("저널 복구 실패 path=" + path, e);
+        }
+        return usernames;
+    }
+
+    private static List<String> readLines(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+            .filter(line -> !line.isBlank())
+            .toList();
+    }
+
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,42 @@
+package hello.springtx.cache;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "springtx.member.write-behind")
+public class WriteBehindProperties {
+
+    private boolean enabled = false;
+
+    // 이 주기마다 모아둔 회원을 하나의 트랜잭션으로 저장한다. (= 장애 시 유실될 수 있는 최대 시간, Durability.NONE)
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    // 버퍼가 이 크기에 도달하면 주기를 기다리지 않고 저장한다.
+    private int maxBuffer = 500;
+
+    // DB 장애(커넥션, 타임아웃)로 flush 가 실패하면 이 시간만큼 쉬고 다시 시도한다. 실패가 이어지면 두 배씩 maxRetryBackoff 까지
+    // 대기 중인 회원은 버리지 않는다. (데이터 오류만 dead letter 로 옮긴다)
+    private Duration retryBackoff = Duration.ofSeconds(1);
+    private Duration maxRetryBackoff = Duration.ofSeconds(30);
+
+    // 메모리에 두는 최대 회원 수 (저장 대기 중인 회원은 제외하고 버린다)
+    private int maxCached = 10_000;
+
+    private Durability durability = Durability.JOURNAL;
+
+    private Path journalPath = Path.of("build", "member-write-behind.journal");
+
+    public enum Durability {
+        // 메모리에만 보관. 장애 시 마지막 flush 이후의 쓰기가 유실된다.
+        NONE,
+        // 응답 전에 저널 파일에 기록한다. 프로세스 장애는 복구, OS 장애 시 페이지 캐시에 남은 쓰기는 유실될 수 있다.
+        JOURNAL,
+        // 응답 전에 저널 파일에 기록하고 fsync 한다. 가장 안전하지만 쓰기마다 fsync 비용이 든다.
+        JOURNAL_FSYNC
+    }
+}
@@ -0,0 +1,21 @@
+package hello.springtx.event;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class TxEventConfig {
+
+    // 커밋 이후 이벤트 처리 전용 스레드풀. 트랜잭션(커넥션)을 잡고 있는 요청 스레드와 분리한다.
+    @Bean
+    public ThreadPoolTaskExecutor txEventExecutor(TxEventProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getPoolSize());
+        executor.setMaxPoolSize(properties.getPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("tx-event-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
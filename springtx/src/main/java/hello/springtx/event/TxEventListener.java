@@ -0,0 +1,15 @@
+package hello.springtx.event;
+
+import java.util.List;
+
+/**
+ * 트랜잭션 커밋 이후 전달되는 이벤트를 처리한다.
+ * 같은 트랜잭션에서 발행된 같은 타입의 이벤트는 한 번에 묶어서 전달된다.
+ * 전용 스레드풀(txEventExecutor)에서 트랜잭션 밖으로 호출된다.
+ */
+public interface TxEventListener<E> {
+
+    Class<E> eventType();
+
+    void onEvents(List<E> events);
+}
@@ -0,0 +1,14 @@
+package hello.springtx.event;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "springtx.event")
+public class TxEventProperties {
+
+    private int poolSize = 2;
+    private int queueCapacity = 10_000;
+}
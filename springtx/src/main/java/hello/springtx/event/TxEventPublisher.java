@@ -0,0 +1,123 @@
+package hello.springtx.event;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 트랜잭션 단위로 이벤트를 모아두었다가 커밋 이후에 전달한다.
+ *
+ * 트랜잭션 안 : 현재 트랜잭션의 TransactionSynchronization 에 버퍼링
+ *              커밋 -> 타입별로 묶어서 txEventExecutor 로 전달, 롤백 -> 버린다.
+ * 트랜잭션 밖 : 바로 txEventExecutor 로 전달
+ *
+ * 기존 트랜잭션에 참여(REQUIRED)한 경우 외부 트랜잭션이 커밋될 때 전달된다.
+ * REQUIRES_NEW 는 동기화도 보류되므로 내부 트랜잭션이 커밋될 때 전달된다.
+ *
+ * txEventExecutor 의 대기열이 가득 차면 이벤트를 버리지 않고 호출한 스레드에서 바로 전달한다. (caller-runs)
+ * 커밋 직후라면 트랜잭션 정리(커넥션 반환) 전에 실행되므로 요청이 그만큼 늦어진다. -> 요청 속도가 처리 속도로 제한된다.
+ * springtx.event.caller.runs
+ */
+@Slf4j
+@Component
+public class TxEventPublisher implements MeterBinder {
+
+    private final ObjectProvider<TxEventListener<?>> listeners;
+    private final TaskExecutor executor;
+    private final LongAdder callerRuns = new LongAdder();
+
+    public TxEventPublisher(ObjectProvider<TxEventListener<?>> listeners,
+                            @Qualifier("txEventExecutor") TaskExecutor executor) {
+        this.listeners = listeners;
+        this.executor = executor;
+    }
+
+    public void publish(Object event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(List.of(event));
+            return;
+        }
+        currentBuffer().events.add(event);
+    }
+
+    private EventBuffer currentBuffer() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof EventBuffer buffer && buffer.publisher() == this) {
+                return buffer;
+            }
+        }
+        EventBuffer buffer = new EventBuffer();
+        TransactionSynchronizationManager.registerSynchronization(buffer);
+        return buffer;
+    }
+
+    private void dispatch(List<Object> events) {
+        Map<Class<?>, List<Object>> byType = new LinkedHashMap<>();
+        for (Object event : events) {
+            byType.computeIfAbsent(event.getClass(), type -> new ArrayList<>()).add(event);
+        }
+        byType.forEach((type, batch) -> listeners.orderedStream()
+            .filter(listener -> listener.eventType().isAssignableFrom(type))
+            .forEach(listener -> execute(listener, batch)));
+    }
+
+    private void execute(TxEventListener<?> listener, List<Object> batch) {
+        try {
+            executor.execute(() -> deliver(listener, batch));
+        } catch (TaskRejectedException e) {
+            callerRuns.increment();
+            log.warn("이벤트 대기열 가득 참 -> 호출 스레드에서 처리 listener={} size={}",
+                listener.getClass().getSimpleName(), batch.size());
+            deliver(listener, batch);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("springtx.event.caller.runs", callerRuns, LongAdder::sum).register(registry);
+    }
+
+    public long getCallerRunsCount() {
+        return callerRuns.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(TxEventListener<?> listener, List<Object> batch) {
+        try {
+            ((TxEventListener<Object>) listener).onEvents(batch);
+        } catch (RuntimeException e) {
+            log.warn("이벤트 처리 실패 listener={} size={}", listener.getClass().getSimpleName(), batch.size(), e);
+        }
+    }
+
+    private class EventBuffer implements TransactionSynchronization {
+
+        private final List<Object> events = new ArrayList<>();
+
+        TxEventPublisher publisher() {
+            return TxEventPublisher.this;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                dispatch(events);
+            } else {
+                log.debug("트랜잭션 롤백 -> 이벤트 {}건 폐기", events.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package hello.springtx.order;
+
+import hello.springtx.shard.ShardGuardListener;
+import hello.springtx.shard.ShardKeyed;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.Setter;
+
+// 잔고 원장 (BalanceLedger 의 영속 원본)
+@Entity
+@EntityListeners(ShardGuardListener.class)
+@Getter
+@Setter
+public class Account implements ShardKeyed {
+
+    @Id
+    private String username;
+    private long balance;
+
+    public Account() {
+    }
+
+    public Account(String username, long balance) {
+        this.username = username;
+        this.balance = balance;
+    }
+
+    @Override
+    public String shardKey() {
+        return username;
+    }
+}
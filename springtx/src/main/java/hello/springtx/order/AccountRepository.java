@@ -0,0 +1,18 @@
+package hello.springtx.order;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface AccountRepository extends JpaRepository<Account, String> {
+
+    // 잔고가 충분할 때만 차감한다. 반환값 0 -> 잔고 부족 (조회 후 차감하지 않으므로 동시 주문에도 음수가 되지 않는다)
+    @Modifying
+    @Query("update Account a set a.balance = a.balance - :amount where a.username = :username and a.balance >= :amount")
+    int debit(@Param("username") String username, @Param("amount") long amount);
+
+    @Modifying
+    @Query("update Account a set a.balance = a.balance + :amount where a.username = :username")
+    int credit(@Param("username") String username, @Param("amount") long amount);
+}
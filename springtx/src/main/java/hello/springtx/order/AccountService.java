@@ -0,0 +1,30 @@
+package hello.springtx.order;
+
+import hello.springtx.shard.ShardKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+@RequiredArgsConstructor
+public class AccountService {
+
+    private final AccountRepository accountRepository;
+    private final BalanceLedger ledger;
+
+    @Transactional
+    public void deposit(@ShardKey String username, long amount) {
+        if (accountRepository.credit(username, amount) == 0) {
+            accountRepository.save(new Account(username, amount));
+        }
+        // 커밋된 이후에 메모리 잔고를 버린다. -> 다음 주문 때 DB 값으로 다시 읽는다.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ledger.evict(username);
+            }
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package hello.springtx.order;
+
+import java.time.LocalDateTime;
+
+// 아카이브 파일(NDJSON) 한 줄
+public record ArchivedOrder(Long id, String username, String payStatus, Long amount, LocalDateTime createdAt) {
+
+    static ArchivedOrder from(Order order) {
+        return new ArchivedOrder(order.getId(), order.getUsername(), order.getPayStatus(), order.getAmount(),
+            order.getCreatedAt());
+    }
+}
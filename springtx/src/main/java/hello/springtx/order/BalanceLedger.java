@@ -0,0 +1,149 @@
+package hello.springtx.order;
+
+import hello.springtx.shard.ShardContext;
+import hello.springtx.shard.ShardProperties;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * 계좌별 잔고를 메모리에 두고 CAS 로 선차감(사전 승인)한다. 락을 잡지 않는다.
+ *
+ * 원장은 Account 테이블이다. 메모리 잔고는 잔고 부족 주문을 트랜잭션 시작 전에 걸러내기 위한 필터일 뿐이고,
+ * 최종 판단은 트랜잭션 안의 AccountRepository.debit(조건부 update)이 한다.
+ *
+ * - 메모리 잔고 = 읽어온 DB 잔고(snapshot) - 그 이후 선차감한 금액. 선차감은 읽어온 snapshot 단위로 기록한다.
+ *   evict 후 다시 읽은 뒤에 이전 선차감을 release 해도 새 snapshot 에는 더해지지 않는다.
+ * - 메모리 잔고가 부족하면 DB 에서 한 번 다시 읽고 판단한다. (다른 인스턴스의 입금으로 DB 잔고가 늘었을 수 있다)
+ *   거절이 몰려도 DB 조회가 반복되지 않도록 읽은 지 ledgerRecheckInterval 이 지난 경우에만 다시 읽는다.
+ * - ledgerTtl 이 지나면 다시 읽는다. 계좌 수는 ledgerMaxEntries 로 제한한다.
+ * - 샤딩을 사용하면 username 의 샤드에서 읽는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class BalanceLedger {
+
+    private final AccountRepository accountRepository;
+    private final OrderProperties properties;
+    private final ShardProperties shardProperties;
+    private final Map<String, Entry> balances = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    // 잔고가 부족하면 null
+    @Nullable
+    public Reservation tryReserve(String username, long amount) {
+        Entry entry = entry(username);
+        if (entry.reserve(amount)) {
+            return new Reservation(entry, amount);
+        }
+        if (entry.ageNanos() >= properties.getLedgerRecheckInterval().toNanos()) {
+            balances.remove(username, entry);
+            Entry reloaded = entry(username);
+            if (reloaded.reserve(amount)) {
+                return new Reservation(reloaded, amount);
+            }
+        }
+        rejected.increment();
+        return null;
+    }
+
+    // 트랜잭션이 롤백되면 선차감한 금액을 되돌린다. (선차감한 snapshot 에만 되돌린다)
+    public void release(Reservation reservation) {
+        reservation.entry.used.addAndGet(-reservation.amount);
+    }
+
+    public void evict(String username) {
+        balances.remove(username);
+    }
+
+    public long getBalance(String username) {
+        return entry(username).available();
+    }
+
+    // 트랜잭션 시작 전에 거절된 주문 수
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    // 메모리에 잔고가 있는 계좌 수
+    public int getCachedCount() {
+        return balances.size();
+    }
+
+    private Entry entry(String username) {
+        Entry entry = balances.get(username);
+        if (entry != null) {
+            if (entry.ageNanos() < properties.getLedgerTtl().toNanos()) {
+                return entry;
+            }
+            balances.remove(username, entry);
+        }
+        if (balances.size() >= properties.getLedgerMaxEntries()) {
+            shrink();
+        }
+        return balances.computeIfAbsent(username, this::load);
+    }
+
+    // 사용 순서를 추적하지 않는다. 만료된 계좌를 먼저 버리고, 그래도 많으면 90% 까지 임의로 버린다.
+    // 버려진 계좌는 다음 주문 때 DB 에서 다시 읽는다.
+    private void shrink() {
+        long ttl = properties.getLedgerTtl().toNanos();
+        balances.values().removeIf(entry -> entry.ageNanos() >= ttl);
+        int target = properties.getLedgerMaxEntries() * 9 / 10;
+        Iterator<Entry> iterator = balances.values().iterator();
+        while (balances.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private Entry load(String username) {
+        return new Entry(ShardContext.callFor(shardProperties, username,
+            () -> accountRepository.findById(username).map(Account::getBalance).orElse(0L)));
+    }
+
+    public static final class Reservation {
+        private final Entry entry;
+        private final long amount;
+
+        private Reservation(Entry entry, long amount) {
+            this.entry = entry;
+            this.amount = amount;
+        }
+    }
+
+    private static final class Entry {
+        private final long snapshot;
+        private final long loadedAt = System.nanoTime();
+        private final AtomicLong used = new AtomicLong(); // snapshot 이후 선차감한 금액 (진행 중 + 커밋)
+
+        private Entry(long snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        private boolean reserve(long amount) {
+            while (true) {
+                long current = used.get();
+                if (snapshot - current < amount) {
+                    return false;
+                }
+                if (used.compareAndSet(current, current + amount)) {
+                    return true;
+                }
+            }
+        }
+
+        private long available() {
+            return snapshot - used.get();
+        }
+
+        private long ageNanos() {
+            return System.nanoTime() - loadedAt;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package hello.springtx.order;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * 금액이 있는 주문을 BalanceLedger 로 먼저 승인한 뒤 OrderService 를 호출한다.
+ * 이 클래스에는 @Transactional 이 없다. 잔고 부족 주문은 트랜잭션(커넥션)을 시작하지 않고 거절된다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LedgerOrderService {
+
+    private final OrderService orderService;
+    private final BalanceLedger ledger;
+    private final OrderProperties properties;
+
+    public void order(Order order) throws NotEnoughMoneyException {
+        if (order.getAmount() == null) {
+            orderService.order(order);
+            return;
+        }
+
+        String username = order.getUsername();
+        long amount = order.getAmount();
+        BalanceLedger.Reservation reservation = ledger.tryReserve(username, amount);
+        if (reservation == null) {
+            log.info("잔고 부족 사전 거절 username={} amount={}", username, amount);
+            throw new NotEnoughMoneyException("잔고가 부족합니다.", properties.isBusinessExceptionStackTrace());
+        }
+
+        try {
+            orderService.order(order);
+        } catch (NotEnoughMoneyException e) {
+            // 메모리 잔고는 충분했지만 DB 잔고가 부족했다. (대기 주문은 커밋됨) -> DB 값으로 다시 맞춘다.
+            ledger.evict(username);
+            throw e;
+        } catch (RuntimeException e) {
+            ledger.release(reservation); // 롤백 -> 선차감 취소
+            throw e;
+        }
+    }
+}
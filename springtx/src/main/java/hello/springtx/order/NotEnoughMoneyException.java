@@ -8,4 +8,9 @@ public class NotEnoughMoneyException extends Exception {
     public NotEnoughMoneyException(String message) {
         super(message);
     }
+
+    // writableStackTrace=false : 스택 트레이스를 채우지 않는다. 비즈니스 흐름 제어용 예외라 스택 트레이스가 필요 없다.
+    public NotEnoughMoneyException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
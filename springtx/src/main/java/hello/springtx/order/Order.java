@@ -1,22 +1,43 @@
 package hello.springtx.order;
 
+import hello.springtx.shard.ShardGuardListener;
+import hello.springtx.shard.ShardKeyed;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import java.time.LocalDateTime;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "orders")
+@EntityListeners(ShardGuardListener.class)
+@Table(name = "orders", indexes = @Index(name = "idx_orders_pay_status_created_at", columnList = "payStatus, createdAt"))
 @Getter
 @Setter
-public class Order {
+public class Order implements ShardKeyed {
 
     @Id
     @GeneratedValue
     private Long id;
 
     private String username; // 정상, 예외, 잔고부족
-    private String payStatus; // 대기, 완료
+    private String payStatus; // 대기, 완료, 만료
+    private Long amount; // 결제 금액 (없으면 잔고 확인을 하지 않는다)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    @Override
+    public String shardKey() {
+        return username;
+    }
 }
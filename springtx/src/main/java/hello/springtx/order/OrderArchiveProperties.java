@@ -0,0 +1,26 @@
+package hello.springtx.order;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "springtx.order.archive")
+public class OrderArchiveProperties {
+
+    private boolean enabled = false;
+
+    private Path directory = Path.of("build", "order-archive");
+
+    // 이보다 오래된 완료 주문을 옮긴다.
+    private Duration olderThan = Duration.ofDays(90);
+
+    // 조회, 삭제 단위 (삭제 트랜잭션 하나가 잡는 락 범위)
+    private int batchSize = 500;
+
+    // 한 번 실행에서 옮기는 최대 주문 수 (파일 하나의 크기)
+    private int maxRowsPerRun = 100_000;
+}
@@ -0,0 +1,196 @@
+package hello.springtx.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.springtx.shard.ShardContext;
+import hello.springtx.shard.ShardProperties;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 오래된 완료 주문을 orders 테이블에서 NDJSON.gz 파일로 옮긴다.
+ *
+ * 1. id keyset 페이징으로 batchSize 씩 읽어서 임시 파일에 스트리밍으로 기록 (전체를 메모리에 올리지 않는다)
+ * 2. 파일을 fsync 하고 최종 이름으로 rename -> 이 시점부터 아카이브에서 조회 가능
+ * 3. 기록한 id 를 batchSize 씩 나눠 각각의 트랜잭션으로 삭제 (한 번에 오래 락을 잡지 않는다)
+ *
+ * 2 이전에 장애가 나면 임시 파일만 남고 테이블은 그대로다.
+ * 3 도중에 장애가 나면 일부 주문이 테이블과 아카이브에 모두 존재할 수 있다. (다음 실행 때 다시 아카이브 후 삭제)
+ *
+ * 샤딩을 사용하면 샤드마다 파일을 따로 만든다. (maxRowsPerRun 은 샤드별 한도)
+ */
+@Slf4j
+@Component
+public class OrderArchiver {
+
+    private static final String COMPLETED = "완료";
+    private static final String SUFFIX = ".ndjson.gz";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    private final OrderRepository orderRepository;
+    private final OrderArchiveProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ShardProperties shardProperties;
+    private final TransactionTemplate readOnlyTx;
+    private final TransactionTemplate tx;
+
+    public OrderArchiver(OrderRepository orderRepository, OrderArchiveProperties properties,
+                         ObjectMapper objectMapper, ShardProperties shardProperties,
+                         PlatformTransactionManager txManager) {
+        this.orderRepository = orderRepository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.shardProperties = shardProperties;
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @Scheduled(cron = "${springtx.order.archive.cron:0 30 3 * * *}")
+    public void run() {
+        if (properties.isEnabled()) {
+            archive(LocalDateTime.now().minus(properties.getOlderThan()));
+        }
+    }
+
+    // cutoff 이전에 생성된 완료 주문을 아카이브하고 옮긴 주문 수를 반환한다.
+    public int archive(LocalDateTime cutoff) {
+        String name = "orders-" + FILE_TIME.format(LocalDateTime.now());
+        int[] archived = new int[1];
+        ShardContext.forEachShard(shardProperties, shard ->
+            archived[0] += archive(cutoff, shardProperties.isEnabled() ? name + "-shard" + shard : name));
+        return archived[0];
+    }
+
+    private int archive(LocalDateTime cutoff, String name) {
+        try {
+            Files.createDirectories(properties.getDirectory());
+            Path temp = properties.getDirectory().resolve(name + SUFFIX + ".tmp");
+            List<Long> ids = write(temp, cutoff);
+            if (ids.isEmpty()) {
+                Files.delete(temp);
+                return 0;
+            }
+            Files.move(temp, properties.getDirectory().resolve(name + SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+            delete(ids);
+            log.info("주문 아카이브 file={} rows={}", name + SUFFIX, ids.size());
+            return ids.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("주문 아카이브 실패", e);
+        }
+    }
+
+    private List<Long> write(Path file, LocalDateTime cutoff) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8))) {
+                long afterId = 0;
+                while (ids.size() < properties.getMaxRowsPerRun()) {
+                    long from = afterId;
+                    List<Order> batch = readOnlyTx.execute(status -> orderRepository.findArchivable(COMPLETED, cutoff,
+                        from, Limit.of(Math.min(properties.getBatchSize(), properties.getMaxRowsPerRun() - ids.size()))));
+                    if (batch == null || batch.isEmpty()) {
+                        break;
+                    }
+                    for (Order order : batch) {
+                        writer.write(objectMapper.writeValueAsString(ArchivedOrder.from(order)));
+                        writer.newLine();
+                        ids.add(order.getId());
+                    }
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+                writer.flush();
+                gzip.finish();
+                channel.force(true); // 삭제 전에 디스크에 반영
+            }
+        }
+        return ids;
+    }
+
+    private void delete(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += properties.getBatchSize()) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + properties.getBatchSize()));
+            tx.executeWithoutResult(status -> orderRepository.deleteAllByIdInBatch(chunk));
+        }
+    }
+
+    public List<ArchivedOrder> findArchived(String username) {
+        return scan(order -> username.equals(order.username()));
+    }
+
+    /**
+     * 아카이브 파일을 memory-mapped I/O 로 읽어서 조건에 맞는 주문을 찾는다.
+     * 파일 내용을 힙으로 복사하지 않고 OS 페이지 캐시에서 바로 압축을 푼다.
+     */
+    public List<ArchivedOrder> scan(Predicate<ArchivedOrder> filter) {
+        List<ArchivedOrder> result = new ArrayList<>();
+        if (!Files.isDirectory(properties.getDirectory())) {
+            return result;
+        }
+        try (Stream<Path> files = Files.list(properties.getDirectory())) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList()) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(
+                         asInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())), 64 * 1024),
+                         StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        ArchivedOrder order = objectMapper.readValue(line, ArchivedOrder.class);
+                        if (filter.test(order)) {
+                            result.add(order);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("주문 아카이브 조회 실패", e);
+        }
+        return result;
+    }
+
+    private static InputStream asInputStream(ByteBuffer buffer) {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(length, buffer.remaining());
+                buffer.get(bytes, offset, count);
+                return count;
+            }
+        };
+    }
+}
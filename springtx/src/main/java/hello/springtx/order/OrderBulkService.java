@@ -0,0 +1,120 @@
+package hello.springtx.order;
+
+import hello.springtx.shard.ShardContext;
+import hello.springtx.shard.ShardKey;
+import hello.springtx.shard.ShardProperties;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 주문 상태를 set-based update 로 한 번에 바꾼다. (엔티티를 하나씩 읽어서 dirty checking 하지 않는다)
+ *
+ * bulkChunkSize 건씩 id 를 조회하고 update 하는 것을 하나의 트랜잭션으로 커밋한다.
+ * -> 한 번에 잡는 row 락의 수와 시간이 chunk 크기로 제한된다.
+ *
+ * 호출한 쪽에 트랜잭션이 있으면 chunk 를 모두 그 트랜잭션에서 실행한다. (chunk 별 커밋 X, 호출한 쪽과 함께 커밋/롤백)
+ * REQUIRES_NEW 로 실행하면 바깥 트랜잭션이 이미 flush 해서 락을 잡은 주문 row 를 기다리며
+ * 커넥션을 하나 더 잡고 락 타임아웃까지 멈춘다.
+ * 시작할 때 바깥 트랜잭션의 변경을 flush 하고, chunk 마다 영속성 컨텍스트에 올라온 주문만 다시 읽는다. (refresh)
+ * flush 이후라서 refresh 가 호출한 쪽의 변경을 덮어쓰지 않는다.
+ *
+ * 샤딩을 사용하면 completePending 은 username 의 샤드에서, expirePending 은 모든 샤드에서 차례로 실행한다.
+ * 호출한 쪽에 트랜잭션이 있으면 그 트랜잭션의 샤드만 변경한다. (트랜잭션은 한 샤드에 묶인다)
+ *
+ * 벌크 변경은 OrderEvent 를 발행하지 않는다. 주문 집계는 재계산(OrderStatAggregator.reconcile)으로 맞춰진다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderBulkService {
+
+    private final OrderRepository repository;
+    private final OrderProperties properties;
+    private final PlatformTransactionManager txManager;
+    private final EntityManager em;
+    private final ShardProperties shardProperties;
+
+    // username 의 대기 주문을 모두 완료로
+    public int completePending(@ShardKey String username) {
+        return transition("대기", "완료", (afterId, limit) ->
+            repository.findIdsByUsername(username, "대기", afterId, limit));
+    }
+
+    // olderThan 이전에 생성된 대기 주문을 모두 만료로
+    public int expirePending(LocalDateTime olderThan) {
+        ChunkQuery chunkQuery = (afterId, limit) -> repository.findIdsCreatedBefore("대기", olderThan, afterId, limit);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transition("대기", "만료", chunkQuery);
+        }
+        int[] total = new int[1];
+        ShardContext.forEachShard(shardProperties, shard -> total[0] += transition("대기", "만료", chunkQuery));
+        return total[0];
+    }
+
+    private int transition(String from, String to, ChunkQuery chunkQuery) {
+        boolean outerTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        TransactionTemplate template = new TransactionTemplate(txManager);
+        template.setPropagationBehavior(outerTransaction ? TransactionDefinition.PROPAGATION_REQUIRED
+            : TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        int chunkSize = properties.getBulkChunkSize();
+        if (outerTransaction) {
+            em.flush();
+        }
+
+        long afterId = 0;
+        int total = 0;
+        while (true) {
+            long lastId = afterId;
+            Chunk chunk = template.execute(status -> {
+                List<Long> ids = chunkQuery.find(lastId, Limit.of(chunkSize));
+                return ids.isEmpty() ? null : new Chunk(ids, repository.updatePayStatus(ids, from, to));
+            });
+            if (chunk == null) {
+                break;
+            }
+            total += chunk.updated();
+            afterId = chunk.ids().get(chunk.ids().size() - 1);
+            log.debug("주문 상태 변경 {} -> {} chunk={} updated={}", from, to, chunk.ids().size(), chunk.updated());
+            if (outerTransaction) {
+                refreshManaged(chunk.ids());
+            }
+            if (chunk.ids().size() < chunkSize) {
+                break;
+            }
+        }
+        log.info("주문 상태 변경 {} -> {} total={}", from, to, total);
+        return total;
+    }
+
+    // 현재 트랜잭션의 영속성 컨텍스트에 이미 있는 주문만 DB 값으로 다시 읽는다. (없는 주문은 로딩하지 않는다)
+    // transition 시작 때 flush 했고 그 사이 엔티티를 바꾸는 코드가 없으므로 덮어쓸 변경이 없다.
+    private void refreshManaged(List<Long> ids) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Order.class);
+        for (Long id : ids) {
+            Object managed = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(id, persister));
+            if (managed != null) {
+                em.refresh(managed);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkQuery {
+        List<Long> find(long afterId, Limit limit);
+    }
+
+    private record Chunk(List<Long> ids, int updated) {
+    }
+}
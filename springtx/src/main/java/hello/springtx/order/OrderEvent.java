@@ -0,0 +1,21 @@
+package hello.springtx.order;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+// 주문 커밋 이후 전달되는 이벤트 (알림, 캐시 무효화 등)
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class OrderEvent {
+
+    private final Long orderId;
+    private final String username;
+    private final String payStatus; // 대기, 완료
+    private final Long amount; // 결제 금액 (없으면 null)
+
+    public OrderEvent(Long orderId, String username, String payStatus) {
+        this(orderId, username, payStatus, null);
+    }
+}
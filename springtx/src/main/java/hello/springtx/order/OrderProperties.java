@@ -0,0 +1,23 @@
+package hello.springtx.order;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "springtx.order")
+public class OrderProperties {
+
+    // false 면 잔고부족 같은 비즈니스 예외를 스택 트레이스 없이 생성한다. (자주 발생하는 예외의 생성 비용 절감)
+    private boolean businessExceptionStackTrace = true;
+
+    // 벌크 상태 변경(OrderBulkService)을 이 건수씩 나눠서 각각의 트랜잭션으로 실행한다. (락 보유 시간 제한)
+    private int bulkChunkSize = 500;
+
+    // BalanceLedger : 메모리 잔고를 DB 에서 다시 읽는 주기, 잔고 부족일 때 다시 읽기 위한 최소 간격, 최대 계좌 수
+    private Duration ledgerTtl = Duration.ofSeconds(30);
+    private Duration ledgerRecheckInterval = Duration.ofMillis(200);
+    private int ledgerMaxEntries = 10_000;
+}
@@ -1,8 +1,49 @@
 package hello.springtx.order;
 
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 // 스프링 데이터 JPA
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    // id 기준 keyset 페이징 (offset 없이 afterId 이후를 limit 만큼)
+    @Query("select o from Order o where o.payStatus = :payStatus and o.createdAt < :cutoff and o.id > :afterId order by o.id")
+    List<Order> findArchivable(@Param("payStatus") String payStatus, @Param("cutoff") LocalDateTime cutoff,
+                               @Param("afterId") long afterId, Limit limit);
+
+    // 벌크 상태 변경 대상 id (id 기준 keyset 페이징)
+    @Query("select o.id from Order o where o.username = :username and o.payStatus = :payStatus and o.id > :afterId order by o.id")
+    List<Long> findIdsByUsername(@Param("username") String username, @Param("payStatus") String payStatus,
+                                 @Param("afterId") long afterId, Limit limit);
+
+    @Query("select o.id from Order o where o.payStatus = :payStatus and o.createdAt < :cutoff and o.id > :afterId order by o.id")
+    List<Long> findIdsCreatedBefore(@Param("payStatus") String payStatus, @Param("cutoff") LocalDateTime cutoff,
+                                    @Param("afterId") long afterId, Limit limit);
+
+    // 엔티티를 읽지 않고 update 한 번으로 상태를 바꾼다. 실행 전 flush 한다.
+    // 영속성 컨텍스트는 비우지 않는다. (호출한 트랜잭션의 엔티티가 준영속이 되지 않도록, OrderBulkService 가 필요한 것만 다시 읽는다)
+    // 조회 이후 다른 트랜잭션이 상태를 바꾼 주문은 from 조건으로 건너뛴다.
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update Order o set o.payStatus = :to where o.id in :ids and o.payStatus = :from")
+    int updatePayStatus(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to);
+
+    // 인터페이스 projection -> select 절에 id, payStatus, amount 만 나간다.
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<OrderSummary> findSummariesByUsernameOrderById(String username);
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<OrderSummary> findSummariesByPayStatusOrderById(String payStatus, Limit limit);
 }
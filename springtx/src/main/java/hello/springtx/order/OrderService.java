@@ -1,5 +1,8 @@
 package hello.springtx.order;
 
+import hello.springtx.bulkhead.Bulkhead;
+import hello.springtx.event.TxEventPublisher;
+import hello.springtx.shard.ShardKey;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -11,10 +14,14 @@ import org.springframework.transaction.annotation.Transactional;
 public class OrderService {
 
     private final OrderRepository repository;
+    private final AccountRepository accountRepository;
+    private final OrderProperties properties;
+    private final TxEventPublisher eventPublisher;
 
     // JPA는  트랜잭션 커밋 시점에 Order 데이터를 DB에 반영(플러시)한다.
-    @Transactional
-    public void order(Order order) throws NotEnoughMoneyException {
+    @Transactional(timeoutString = "${springtx.tx.timeout.order:5}")
+    @Bulkhead("order")
+    public void order(@ShardKey Order order) throws NotEnoughMoneyException {
         log.info("order 호출");
         repository.save(order);
 
@@ -23,13 +30,22 @@ public class OrderService {
             log.info("시스템 예외 발생");
             throw new RuntimeException(); // unchecked exception -> rollback
         }
+        // 차감 전에 판단한다. (checked exception 은 커밋되므로 차감한 뒤에 던지면 대기 주문에 돈이 빠져나간다)
         if (order.getUsername().equals("잔고부족")) {
             log.info("잔고 부족 비즈니스 예외 발생");
             order.setPayStatus("대기");
-            throw new NotEnoughMoneyException("잔고가 부족합니다."); //  checked exception -> commit
+            eventPublisher.publish(new OrderEvent(order.getId(), order.getUsername(), order.getPayStatus(), order.getAmount()));
+            throw new NotEnoughMoneyException("잔고가 부족합니다.", properties.isBusinessExceptionStackTrace()); //  checked exception -> commit
+        }
+        if (order.getAmount() != null && accountRepository.debit(order.getUsername(), order.getAmount()) == 0) {
+            log.info("잔고 부족 비즈니스 예외 발생 amount={}", order.getAmount());
+            order.setPayStatus("대기");
+            eventPublisher.publish(new OrderEvent(order.getId(), order.getUsername(), order.getPayStatus(), order.getAmount()));
+            throw new NotEnoughMoneyException("잔고가 부족합니다.", properties.isBusinessExceptionStackTrace()); //  checked exception -> commit
         }
         log.info("정상 승인");
         order.setPayStatus("완료");
+        eventPublisher.publish(new OrderEvent(order.getId(), order.getUsername(), order.getPayStatus(), order.getAmount()));
         log.info("결제 프로세스 완료"); // 정상 -> commit
     }
 }
@@ -0,0 +1,46 @@
+package hello.springtx.order;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 주문 집계 (OrderStatAggregator 가 커밋된 주문의 증분으로 갱신한다)
+ * dimension = payStatus : 결제 상태별, dimension = username : 사용자별 주문 수와 금액 합계
+ */
+@Entity
+@Table(name = "order_stat")
+@IdClass(OrderStat.Key.class)
+@Getter
+@Setter
+public class OrderStat {
+
+    public static final String PAY_STATUS = "payStatus";
+    public static final String USERNAME = "username";
+
+    @Id
+    private String dimension;
+    @Id
+    private String dimensionKey;
+
+    private long orderCount;
+    private long totalAmount;
+    private LocalDateTime updatedAt;
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String dimension;
+        private String dimensionKey;
+    }
+}
@@ -0,0 +1,151 @@
+package hello.springtx.order;
+
+import hello.springtx.event.TxEventListener;
+import hello.springtx.shard.ShardContext;
+import hello.springtx.shard.ShardProperties;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 주문 집계(order_stat)를 커밋된 주문의 증분으로 갱신한다.
+ * 대시보드가 orders 전체를 GROUP BY 하지 않고 작은 집계 테이블만 읽도록 한다.
+ *
+ * 1. OrderService 커밋 이후 OrderEvent 를 받아 (dimension, key) 별 증분을 메모리에 합친다.
+ * 2. flushInterval 마다 합친 증분을 MERGE(upsert) batch 한 번으로 반영한다. (주문 insert 와 같은 행을 놓고 경합하지 않는다)
+ * 3. reconcileCron 마다 orders 기준으로 집계를 다시 계산해 덮어쓴다.
+ *    증분은 메모리에만 있으므로 장애 시 유실될 수 있고, 아카이브(삭제)나 벌크 상태 변경은 이벤트가 없다.
+ *    재계산 순간에 전달 중인 이벤트는 중복 반영될 수 있으며 다음 재계산에서 맞춰진다.
+ *
+ * 샤딩을 사용하면 order_stat 은 0번 샤드에만 둔다. 재계산은 모든 샤드의 orders 를 집계해서 합친다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStatAggregator implements TxEventListener<OrderEvent> {
+
+    static final String UPSERT_SQL = """
+        merge into order_stat t
+        using (select cast(? as varchar(255)) as dimension, cast(? as varchar(255)) as dimension_key,
+                      cast(? as bigint) as order_count, cast(? as bigint) as total_amount) s
+        on t.dimension = s.dimension and t.dimension_key = s.dimension_key
+        when matched then update set order_count = t.order_count + s.order_count,
+                                     total_amount = t.total_amount + s.total_amount,
+                                     updated_at = current_timestamp
+        when not matched then insert (dimension, dimension_key, order_count, total_amount, updated_at)
+                              values (s.dimension, s.dimension_key, s.order_count, s.total_amount, current_timestamp)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager txManager;
+    private final OrderStatProperties properties;
+    private final ShardProperties shardProperties;
+
+    private final Map<OrderStat.Key, long[]> pending = new ConcurrentHashMap<>(); // [count, amount]
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Override
+    public Class<OrderEvent> eventType() {
+        return OrderEvent.class;
+    }
+
+    @Override
+    public void onEvents(List<OrderEvent> events) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (OrderEvent event : events) {
+            long amount = event.getAmount() == null ? 0 : event.getAmount();
+            add(new OrderStat.Key(OrderStat.PAY_STATUS, event.getPayStatus()), 1, amount);
+            add(new OrderStat.Key(OrderStat.USERNAME, event.getUsername()), 1, amount);
+        }
+    }
+
+    private void add(OrderStat.Key key, long count, long amount) {
+        pending.compute(key, (k, delta) -> {
+            long[] sum = delta == null ? new long[2] : delta;
+            sum[0] += count;
+            sum[1] += amount;
+            return sum;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${springtx.order.stat.flush-interval:1s}")
+    public void flush() {
+        if (!properties.isEnabled() || pending.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<Object[]> batch = new ArrayList<>();
+            for (OrderStat.Key key : List.copyOf(pending.keySet())) {
+                long[] delta = pending.remove(key);
+                if (delta != null) {
+                    batch.add(new Object[]{key.getDimension(), key.getDimensionKey(), delta[0], delta[1]});
+                }
+            }
+            try {
+                ShardContext.runIn(0, () -> new TransactionTemplate(txManager).executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPSERT_SQL, batch)));
+                log.debug("order_stat 증분 반영 rows={}", batch.size());
+            } catch (RuntimeException e) {
+                // 반영하지 못한 증분은 다음 flush 에서 다시 시도한다.
+                for (Object[] row : batch) {
+                    add(new OrderStat.Key((String) row[0], (String) row[1]), (long) row[2], (long) row[3]);
+                }
+                log.warn("order_stat 증분 반영 실패 rows={}", batch.size(), e);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(cron = "${springtx.order.stat.reconcile-cron:0 */10 * * * *}")
+    public void scheduledReconcile() {
+        if (properties.isEnabled()) {
+            reconcile();
+        }
+    }
+
+    // orders 기준으로 집계를 다시 계산한다. 반영 전 증분은 재계산 결과에 포함되므로 버린다.
+    public void reconcile() {
+        flushLock.lock();
+        try {
+            pending.clear();
+            Map<OrderStat.Key, long[]> stats = new HashMap<>();
+            ShardContext.forEachShard(shardProperties, shard -> jdbcTemplate.query("""
+                    select cast(? as varchar(255)), pay_status, count(*), coalesce(sum(amount), 0)
+                    from orders where pay_status is not null group by pay_status
+                    union all
+                    select cast(? as varchar(255)), username, count(*), coalesce(sum(amount), 0)
+                    from orders where pay_status is not null group by username""",
+                rs -> {
+                    long[] sum = stats.computeIfAbsent(new OrderStat.Key(rs.getString(1), rs.getString(2)),
+                        key -> new long[2]);
+                    sum[0] += rs.getLong(3);
+                    sum[1] += rs.getLong(4);
+                }, OrderStat.PAY_STATUS, OrderStat.USERNAME));
+            List<Object[]> rows = new ArrayList<>();
+            stats.forEach((key, sum) -> rows.add(new Object[]{key.getDimension(), key.getDimensionKey(), sum[0], sum[1]}));
+            ShardContext.runIn(0, () -> new TransactionTemplate(txManager).executeWithoutResult(status -> {
+                jdbcTemplate.update("delete from order_stat");
+                jdbcTemplate.batchUpdate("""
+                    insert into order_stat (dimension, dimension_key, order_count, total_amount, updated_at)
+                    values (?, ?, ?, ?, current_timestamp)""", rows);
+            }));
+            log.info("order_stat 재계산 완료 rows={}", rows.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package hello.springtx.order;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "springtx.order.stat")
+public class OrderStatProperties {
+
+    private boolean enabled = true;
+
+    // 모아둔 증분을 이 주기마다 한 번의 batch upsert 로 반영한다.
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    // orders 테이블 기준으로 집계를 다시 계산하는 주기 (증분 유실, 아카이브, 벌크 변경 보정)
+    private String reconcileCron = "0 */10 * * * *";
+}
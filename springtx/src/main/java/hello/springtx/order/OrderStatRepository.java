@@ -0,0 +1,11 @@
+package hello.springtx.order;
+
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface OrderStatRepository extends JpaRepository<OrderStat, OrderStat.Key> {
+
+    @Transactional(readOnly = true)
+    List<OrderStat> findByDimensionOrderByDimensionKey(String dimension);
+}
@@ -0,0 +1,11 @@
+package hello.springtx.order;
+
+// 조회 전용 주문 projection (스프링 데이터 JPA 인터페이스 기반, 필요한 컬럼만 select)
+public interface OrderSummary {
+
+    Long getId();
+
+    String getPayStatus();
+
+    Long getAmount();
+}
@@ -0,0 +1,99 @@
+package hello.springtx.pool;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import hello.springtx.shard.ShardRoutingDataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 관찰된 트랜잭션 동시성에 맞춰 히카리 풀의 maximumPoolSize 를 조정한다.
+ *
+ * MemberService.joinV1 -> LogRepository.save(REQUIRES_NEW) 는 한 스레드가 커넥션 2개를 동시에 사용한다.
+ * 모든 스레드가 커넥션 1개씩 잡은 상태에서 두 번째 커넥션을 기다리면 아무도 진행하지 못한다.(커넥션 풀 데드락)
+ * threads × (depth - 1) >= pool 이면 이런 상황이 가능하므로 경고를 남긴다.
+ *
+ * 필요량 = 최대 동시 스레드 수 × 최대 중첩 깊이 + headroom, [minSize, maxSize] 범위로 제한
+ *
+ * 샤딩을 사용하면 모든 샤드 풀을 같은 크기로 조정한다.
+ * 동시성은 샤드를 구분하지 않고 관찰하므로, 한 샤드에 요청이 몰리는 경우를 기준으로 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdaptivePoolSizer {
+
+    private final TransactionConcurrencyTracker tracker;
+    private final PoolSizingProperties properties;
+    private final DataSource dataSource;
+
+    @Scheduled(fixedDelayString = "${springtx.pool.auto-sizing.interval:10s}",
+        initialDelayString = "${springtx.pool.auto-sizing.interval:10s}")
+    public void adjust() {
+        List<HikariDataSource> pools = pools();
+        if (pools.isEmpty()) {
+            return;
+        }
+        TransactionConcurrencyTracker.Snapshot snapshot = tracker.snapshotAndReset();
+        int target = targetSize(snapshot);
+        for (HikariDataSource hikari : pools) {
+            adjust(hikari, snapshot, target);
+        }
+    }
+
+    private void adjust(HikariDataSource hikari, TransactionConcurrencyTracker.Snapshot snapshot, int target) {
+        HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+        int poolSize = config.getMaximumPoolSize();
+
+        if (isNestingDeadlockPossible(snapshot.peakThreads(), snapshot.peakDepth(), poolSize)) {
+            log.warn("커넥션 풀 데드락 가능: pool={} threads={} depth={} size={}", hikari.getPoolName(),
+                snapshot.peakThreads(), snapshot.peakDepth(), poolSize);
+        }
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        if (target != poolSize) {
+            log.info("커넥션 풀 크기 조정 pool={} {} -> {} (peakTx={} threads={} depth={})", hikari.getPoolName(),
+                poolSize, target, snapshot.peakTransactions(), snapshot.peakThreads(), snapshot.peakDepth());
+            if (config.getMinimumIdle() > target) {
+                config.setMinimumIdle(target);
+            }
+            config.setMaximumPoolSize(target);
+        }
+    }
+
+    int targetSize(TransactionConcurrencyTracker.Snapshot snapshot) {
+        int demand = Math.max(snapshot.peakTransactions(), snapshot.peakThreads() * snapshot.peakDepth())
+            + properties.getHeadroom();
+        return Math.max(properties.getMinSize(), Math.min(properties.getMaxSize(), demand));
+    }
+
+    public static boolean isNestingDeadlockPossible(int threads, int depth, int poolSize) {
+        return depth > 1 && threads * (depth - 1) >= poolSize;
+    }
+
+    // ShardRoutingDataSource 의 unwrap 은 현재 샤드(스케줄러 스레드에서는 0번)의 풀만 반환하므로 샤드 풀을 직접 모은다.
+    private List<HikariDataSource> pools() {
+        List<HikariDataSource> pools = new ArrayList<>();
+        try {
+            if (dataSource.isWrapperFor(ShardRoutingDataSource.class)) {
+                ShardRoutingDataSource shards = dataSource.unwrap(ShardRoutingDataSource.class);
+                for (int i = 0; i < shards.getShardCount(); i++) {
+                    pools.add(shards.getShard(i).unwrap(HikariDataSource.class));
+                }
+            } else if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                pools.add(dataSource.unwrap(HikariDataSource.class));
+            }
+        } catch (SQLException e) {
+            log.warn("HikariDataSource 를 찾을 수 없습니다.", e);
+        }
+        return pools;
+    }
+}
@@ -0,0 +1,31 @@
+package hello.springtx.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// 실제 커넥션 풀에서 커넥션을 꺼낼 때마다 LazyConnectionTracker 에 알린다.
+class CountingDataSource extends DelegatingDataSource {
+
+    private final LazyConnectionTracker tracker;
+
+    CountingDataSource(DataSource target, LazyConnectionTracker tracker) {
+        super(target);
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        tracker.connectionAcquired();
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = super.getConnection(username, password);
+        tracker.connectionAcquired();
+        return connection;
+    }
+}
@@ -0,0 +1,40 @@
+package hello.springtx.pool;
+
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * 트랜잭션 시작 시점이 아니라 첫 SQL 을 실행할 때 풀에서 커넥션을 꺼낸다.
+ * autoCommit, readOnly, isolation 설정은 프록시가 기억했다가 실제 커넥션을 얻을 때 적용한다.
+ * SQL 없이 끝나는 트랜잭션(캐시 조회 후 반환 등)은 커넥션 풀을 전혀 사용하지 않는다.
+ *
+ * DataSource -> LazyConnectionDataSourceProxy -> CountingDataSource -> HikariDataSource
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "springtx.pool.lazy-connection", name = "enabled", havingValue = "true")
+public class LazyConnectionConfig {
+
+    @Bean
+    static LazyConnectionTracker lazyConnectionTracker() {
+        return new LazyConnectionTracker();
+    }
+
+    @Bean
+    static BeanPostProcessor lazyConnectionPostProcessor(ObjectProvider<LazyConnectionTracker> tracker) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof LazyConnectionDataSourceProxy)
+                    && !(bean instanceof CountingDataSource)) {
+                    return new LazyConnectionDataSourceProxy(new CountingDataSource(dataSource, tracker.getObject()));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package hello.springtx.pool;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+/**
+ * 물리 트랜잭션마다 실제 커넥션을 사용했는지 집계한다. (springtx.transaction.connection, acquired=true/false)
+ *
+ * 스레드별로 진행 중인 트랜잭션을 스택으로 관리하고, 커넥션 획득은 가장 안쪽 트랜잭션에 기록한다.
+ * REQUIRES_NEW 내부 트랜잭션이 얻은 커넥션은 보류된 바깥 트랜잭션의 사용으로 세지 않는다.
+ *
+ * DataSource 를 감싸는 시점에 필요하므로 MeterRegistry 에 의존하지 않고, MeterBinder 로 등록된다.
+ */
+@Slf4j
+public class LazyConnectionTracker implements TransactionExecutionListener, MeterBinder {
+
+    private final ThreadLocal<Deque<Entry>> transactions = ThreadLocal.withInitial(ArrayDeque::new);
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder untouched = new LongAdder();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("springtx.transaction.connection", acquired, LongAdder::sum)
+            .tag("acquired", "true")
+            .description("실제 커넥션을 사용한 트랜잭션 수")
+            .register(registry);
+        FunctionCounter.builder("springtx.transaction.connection", untouched, LongAdder::sum)
+            .tag("acquired", "false")
+            .description("커넥션 없이 끝난 트랜잭션 수")
+            .register(registry);
+    }
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        if (!transaction.isNested()) {
+            transactions.get().push(new Entry(transaction));
+        }
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        if (beginFailure != null) {
+            remove(transaction);
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        end(transaction);
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, @Nullable Throwable rollbackFailure) {
+        end(transaction);
+    }
+
+    void connectionAcquired() {
+        Entry current = transactions.get().peek();
+        if (current != null) {
+            current.connections++;
+        }
+    }
+
+    public long getUntouchedCount() {
+        return untouched.sum();
+    }
+
+    public long getAcquiredCount() {
+        return acquired.sum();
+    }
+
+    private void end(TransactionExecution transaction) {
+        Entry entry = remove(transaction);
+        if (entry == null) {
+            return; // 이미 종료 처리된 트랜잭션 (커밋 실패 후 롤백 등)
+        }
+        if (entry.connections > 0) {
+            acquired.increment();
+        } else {
+            untouched.increment();
+            log.debug("커넥션 없이 종료된 트랜잭션 name={}", transaction.getTransactionName());
+        }
+    }
+
+    @Nullable
+    private Entry remove(TransactionExecution transaction) {
+        Deque<Entry> stack = transactions.get();
+        for (var iterator = stack.iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (entry.transaction == transaction) {
+                iterator.remove();
+                if (stack.isEmpty()) {
+                    transactions.remove();
+                }
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static final class Entry {
+        private final TransactionExecution transaction;
+        private int connections;
+
+        private Entry(TransactionExecution transaction) {
+            this.transaction = transaction;
+        }
+    }
+}
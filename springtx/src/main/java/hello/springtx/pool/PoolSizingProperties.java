@@ -0,0 +1,24 @@
+package hello.springtx.pool;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "springtx.pool.auto-sizing")
+public class PoolSizingProperties {
+
+    // false 면 관찰과 경고만 하고 풀 크기는 바꾸지 않는다.
+    private boolean enabled = false;
+
+    private int minSize = 10;
+    private int maxSize = 50;
+
+    // 관찰된 필요량에 더해 여유로 두는 커넥션 수
+    private int headroom = 2;
+
+    // 관찰 구간. 구간마다 최대치를 기준으로 크기를 조정하고 최대치를 초기화한다.
+    private Duration interval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,86 @@
+package hello.springtx.pool;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+/**
+ * 물리 트랜잭션(= 커넥션 하나)의 동시 실행 수와 스레드별 중첩 깊이를 관찰한다.
+ * 스프링 부트가 TransactionExecutionListener 빈을 트랜잭션 매니저에 자동으로 등록한다.
+ *
+ * 리스너는 신규 트랜잭션에 대해서만 호출된다. (기존 트랜잭션 참여는 커넥션을 추가로 쓰지 않는다)
+ * REQUIRES_NEW 는 기존 트랜잭션을 보류하고 신규 트랜잭션을 시작하므로 깊이가 2가 된다.
+ * 커넥션 획득 전에 호출되는 beforeBegin 에서 집계하므로, 커넥션을 얻지 못한 시도도 필요량에 포함된다.
+ */
+@Slf4j
+@Component
+public class TransactionConcurrencyTracker implements TransactionExecutionListener {
+
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+    private final Set<TransactionExecution> active = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger activeTransactions = new AtomicInteger();
+    private final AtomicInteger activeThreads = new AtomicInteger();
+    private final AtomicInteger peakTransactions = new AtomicInteger();
+    private final AtomicInteger peakThreads = new AtomicInteger();
+    private final AtomicInteger peakDepth = new AtomicInteger();
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        if (transaction.isNested()) {
+            return; // savepoint 는 같은 커넥션을 사용한다.
+        }
+        active.add(transaction);
+        int[] threadDepth = depth.get();
+        if (threadDepth[0]++ == 0) {
+            peakThreads.accumulateAndGet(activeThreads.incrementAndGet(), Math::max);
+        }
+        peakDepth.accumulateAndGet(threadDepth[0], Math::max);
+        peakTransactions.accumulateAndGet(activeTransactions.incrementAndGet(), Math::max);
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        if (beginFailure != null) {
+            end(transaction);
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        end(transaction);
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, @Nullable Throwable rollbackFailure) {
+        end(transaction);
+    }
+
+    private void end(TransactionExecution transaction) {
+        if (!active.remove(transaction)) {
+            return; // 이미 종료 처리된 트랜잭션 (커밋 실패 후 롤백 등)
+        }
+        activeTransactions.decrementAndGet();
+        int[] threadDepth = depth.get();
+        if (--threadDepth[0] == 0) {
+            activeThreads.decrementAndGet();
+            depth.remove();
+        }
+    }
+
+    /**
+     * 현재 구간의 최대치를 반환하고, 다음 구간을 위해 최대치를 현재 값으로 초기화한다.
+     */
+    public Snapshot snapshotAndReset() {
+        return new Snapshot(peakTransactions.getAndSet(activeTransactions.get()),
+            peakThreads.getAndSet(activeThreads.get()), peakDepth.getAndSet(activeThreads.get() > 0 ? 1 : 0));
+    }
+
+    public record Snapshot(int peakTransactions, int peakThreads, int peakDepth) {
+    }
+}
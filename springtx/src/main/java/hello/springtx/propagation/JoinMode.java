@@ -0,0 +1,13 @@
+package hello.springtx.propagation;
+
+/**
+ * MemberService.joinAll 의 실패 처리 방식
+ */
+public enum JoinMode {
+
+    // 하나라도 로그 저장에 실패하면 회원, 로그 모두 롤백 (MemberServiceTest.outerTxOn_fail)
+    ALL_OR_NOTHING,
+
+    // 로그 저장 실패는 해당 건만 포기하고 회원은 저장 (MemberServiceTest.recoverException_success)
+    PER_ITEM
+}
@@ -0,0 +1,16 @@
+package hello.springtx.propagation;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class JoinResult {
+
+    private final List<String> joined;      // 저장된 회원
+    private final List<String> duplicates;  // 이미 존재하거나 요청 안에서 중복된 회원
+    private final List<String> failedLogs;  // 로그 저장에 실패한 회원 (PER_ITEM)
+}
@@ -1,21 +1,22 @@
 package hello.springtx.propagation;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.Id;
+import hello.springtx.shard.ShardKeyed;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import lombok.Getter;
 import lombok.Setter;
 
-@Entity
+// JPA 엔티티가 아니다. 생성일(bucket) 별 테이블 log_yyyymmdd 에 저장한다. (LogTables, LogRepository)
+// 보관 기간이 지난 로그는 bucket 테이블을 통째로 지운다. (LogRetentionJob)
 @Getter
 @Setter
-public class Log {
+public class Log implements ShardKeyed {
 
-    @Id
-    @GeneratedValue
     private Long id;
     private String message;
 
+    private LocalDateTime createdAt;
+
     public Log() {
 
     }
@@ -23,4 +24,20 @@ public class Log {
     public Log(String message) {
         this.message = message;
     }
+
+    public Log(Long id, String message, LocalDateTime createdAt) {
+        this.id = id;
+        this.message = message;
+        this.createdAt = createdAt;
+    }
+
+    // 저장되기 전(createdAt 이 없으면)에는 null
+    public LocalDate getBucket() {
+        return createdAt == null ? null : createdAt.toLocalDate();
+    }
+
+    @Override
+    public String shardKey() {
+        return message;
+    }
 }
@@ -1,23 +1,69 @@
 package hello.springtx.propagation;
 
-import jakarta.persistence.EntityManager;
+import hello.springtx.query.QueryStatsRecorder;
+import hello.springtx.query.SingleFlight;
+import hello.springtx.shard.ShardContext;
+import hello.springtx.shard.ShardKey;
+import hello.springtx.tx.GroupCommitExecutor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Log 를 생성일(bucket) 별 테이블에 JDBC 로 저장하고 조회한다. (LogTables)
+ * 트랜잭션 매니저(JpaTransactionManager)가 노출한 커넥션을 그대로 사용하므로 @Transactional 이 그대로 적용된다.
+ * 조회는 대상 bucket 테이블을 union all 로 묶은 쿼리 한 번이다.
+ */
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class LogRepository {
-    private final EntityManager em;
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    private static final RowMapper<Log> LOG_MAPPER = (rs, rowNum) ->
+        new Log(rs.getLong("id"), rs.getString("message"), rs.getObject("created_at", LocalDateTime.class));
+    private static final RowMapper<LogView> VIEW_MAPPER = (rs, rowNum) ->
+        new LogView(rs.getLong("id"), rs.getString("message"), rs.getObject("created_at", LocalDateTime.class));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LogTables logTables;
+    private final QueryStatsRecorder queryStats;
+    private final SingleFlight singleFlight;
+    private final GroupCommitExecutor groupCommit;
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, timeoutString = "${springtx.tx.timeout.log:2}")
     public void save(Log logMessage) {
         log.info("log save");
-        em.persist(logMessage);
+        persist(logMessage);
+    }
+
+    // 다른 로그 저장과 묶어서 한 트랜잭션으로 커밋한다. 커밋 이후 완료된다. (GroupCommitExecutor)
+    // 그룹 실패 시 다시 실행될 수 있으므로 Log 는 작업 안에서 만든다.
+    // 샤딩을 사용하면 message 의 샤드에서 커밋된다. (submit 할 때의 샤드)
+    public CompletableFuture<Log> saveGrouped(@ShardKey String message) {
+        return groupCommit.submit(() -> {
+            Log logMessage = new Log(message);
+            persist(logMessage);
+            return logMessage;
+        });
+    }
+
+    private void persist(Log logMessage) {
+        insert(List.of(logMessage));
 
         if (logMessage.getMessage().contains("로그예외")) {
             log.info("log 저장 시 예외 발생");
@@ -25,9 +71,79 @@ public class LogRepository {
         }
     }
 
-    public Optional<Log> find(String message) {
-        return em.createQuery("select l from Log l where l.message = :message", Log.class)
-            .setParameter("message", message)
-            .getResultList().stream().findAny();
+    // 로그를 bucket 별 JDBC batch 로 저장한다. 하나라도 로그예외면 전체 롤백
+    @Transactional(propagation = Propagation.REQUIRES_NEW, timeoutString = "${springtx.tx.timeout.log:2}")
+    public void saveAll(List<Log> logMessages) {
+        log.info("log saveAll size={}", logMessages.size());
+        insert(logMessages);
+
+        for (Log logMessage : logMessages) {
+            if (logMessage.getMessage().contains("로그예외")) {
+                log.info("log 저장 시 예외 발생 message={}", logMessage.getMessage());
+                throw new RuntimeException("예외 발생"); // runtime exception -> rollback
+            }
+        }
+    }
+
+    // createdAt 이 없으면 지금으로 채우고, createdAt 의 bucket 테이블에 저장한다.
+    // 엔티티 리스너(ShardGuardListener)가 없으므로 다른 샤드에 대한 쓰기를 여기서 막는다.
+    private void insert(List<Log> logMessages) {
+        if (logMessages.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Iterator<Long> ids = nextIds(logMessages.size()).iterator();
+        Map<LocalDate, List<Object[]>> byBucket = new TreeMap<>();
+        for (Log logMessage : logMessages) {
+            ShardContext.checkWrite(logMessage.shardKey());
+            if (logMessage.getCreatedAt() == null) {
+                logMessage.setCreatedAt(now);
+            }
+            logMessage.setId(ids.next());
+            byBucket.computeIfAbsent(logMessage.getBucket(), bucket -> new ArrayList<>())
+                .add(new Object[]{logMessage.getId(), logMessage.getMessage(), logMessage.getCreatedAt()});
+        }
+        byBucket.forEach((bucket, rows) -> {
+            logTables.ensure(bucket);
+            jdbcTemplate.batchUpdate("insert into " + LogTables.tableName(bucket)
+                + " (id, message, created_at) values (?, ?, ?)", rows);
+        });
+    }
+
+    // 시퀀스 값을 count 개 한 번에 받는다. (H2 system_range, row 마다 다음 값)
+    private List<Long> nextIds(int count) {
+        return jdbcTemplate.queryForList("select next value for log_seq from system_range(1, ?)", Long.class, count);
+    }
+
+    // 트랜잭션 밖에서 같은 message 를 동시에 조회하면 쿼리 한 번으로 합친다. (SingleFlight)
+    public Optional<Log> find(@ShardKey String message) {
+        return singleFlight.execute("LogRepository.find", message, () ->
+            queryStats.record("LogRepository.find", () ->
+                select(logTables.bucketsFrom(LocalDate.MIN), message, LOG_MAPPER))).stream().findAny();
+    }
+
+    // 최근 recentDays 일의 bucket 테이블만 조회한다. (오늘 포함)
+    public Optional<Log> find(@ShardKey String message, int recentDays) {
+        List<LocalDate> buckets = logTables.bucketsFrom(LocalDate.now().minusDays(recentDays - 1L));
+        return queryStats.record("LogRepository.findRecent", () ->
+            select(buckets, message, LOG_MAPPER)).stream().findAny();
+    }
+
+    // 필요한 컬럼만 DTO 로 조회한다.
+    @Transactional(readOnly = true)
+    public List<LogView> findViews(@ShardKey String message) {
+        return queryStats.record("LogRepository.findViews", () ->
+            select(logTables.bucketsFrom(LocalDate.MIN), message, VIEW_MAPPER));
+    }
+
+    // bucket 테이블마다 message 인덱스로 조회하고 union all 로 합친다. 최근 bucket 부터
+    private <T> List<T> select(List<LocalDate> buckets, String message, RowMapper<T> mapper) {
+        if (buckets.isEmpty()) {
+            return List.of();
+        }
+        String sql = buckets.stream()
+            .map(bucket -> "select id, message, created_at from " + LogTables.tableName(bucket) + " where message = ?")
+            .collect(Collectors.joining(" union all "));
+        return jdbcTemplate.query(sql, mapper, Collections.nCopies(buckets.size(), message).toArray());
     }
 }
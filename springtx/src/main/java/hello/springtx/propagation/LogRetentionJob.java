@@ -0,0 +1,40 @@
+package hello.springtx.propagation;
+
+import java.time.LocalDate;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 보관 기간이 지난 Log 를 bucket(하루) 단위로 정리한다.
+ * bucket 은 테이블(log_yyyymmdd)이므로 drop table 로 통째로 지운다. row 를 읽거나 지우지 않아서 락, undo 가 bucket 크기와 무관하다.
+ *
+ * 샤딩을 사용하면 모든 샤드의 테이블을 같이 지운다. (LogTables)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LogRetentionJob {
+
+    private final LogTables logTables;
+    private final LogRetentionProperties properties;
+
+    @Scheduled(cron = "${springtx.log.retention.cron:0 10 3 * * *}")
+    public void run() {
+        if (properties.isEnabled()) {
+            purge(LocalDate.now().minusDays(properties.getRetentionDays() - 1L));
+        }
+    }
+
+    // cutoff 이전 bucket 테이블을 모두 지우고 지운 bucket 수를 반환한다.
+    public int purge(LocalDate cutoff) {
+        List<LocalDate> buckets = logTables.bucketsBefore(cutoff);
+        for (LocalDate bucket : buckets) {
+            logTables.drop(bucket);
+            log.info("log bucket 정리 table={}", LogTables.tableName(bucket));
+        }
+        return buckets.size();
+    }
+}
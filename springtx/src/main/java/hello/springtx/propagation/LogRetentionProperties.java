@@ -0,0 +1,16 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "springtx.log.retention")
+public class LogRetentionProperties {
+
+    private boolean enabled = false;
+
+    // 오늘을 포함해 이 일수만큼의 bucket 을 보관한다.
+    private int retentionDays = 30;
+}
@@ -0,0 +1,130 @@
+package hello.springtx.propagation;
+
+import hello.springtx.shard.ShardContext;
+import hello.springtx.shard.ShardProperties;
+import jakarta.annotation.PostConstruct;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Log 를 생성일(bucket) 별 테이블 log_yyyymmdd 에 나눠 저장한다.
+ * 보관 기간이 지난 bucket 은 테이블을 통째로 drop 한다. (row 단위 delete, 인덱스 정리가 없다)
+ *
+ * H2 는 DDL 을 실행하면 진행 중인 트랜잭션을 커밋하므로, 테이블 생성/삭제는 트랜잭션과 무관한 별도 커넥션으로 실행한다.
+ * 오늘, 내일 테이블은 시작할 때와 precreate-cron 마다 미리 만들어 둔다. 그 외의 bucket(과거 날짜 등)은 insert 직전에 만든다.
+ * 미리 만들지 못한 경우에만 insert 중에 커넥션을 하나 더 사용한다.
+ *
+ * 샤딩을 사용하면 테이블은 모든 샤드에 같이 만들고 같이 지운다. buckets 는 모든 샤드에 있는 테이블이다.
+ * id 는 테이블과 무관하게 log_seq 시퀀스에서 받는다. (샤드별 id 구간은 ShardConfig)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LogTables {
+
+    private static final String PREFIX = "log_";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final DataSource dataSource;
+    private final ShardProperties shardProperties;
+    private final NavigableSet<LocalDate> buckets = new ConcurrentSkipListSet<>();
+
+    public static String tableName(LocalDate bucket) {
+        return PREFIX + SUFFIX.format(bucket);
+    }
+
+    // 시퀀스를 만들고, 이미 있는 테이블을 읽어온다. 샤드마다 빠진 테이블이 있으면 만든다.
+    // ShardConfig 의 시퀀스 구간 지정보다 먼저 실행된다. (SmartInitializingSingleton)
+    @PostConstruct
+    void init() {
+        NavigableSet<LocalDate> existing = new TreeSet<>();
+        ShardContext.forEachShard(shardProperties, shard -> withOwnConnection(jdbcTemplate -> {
+            jdbcTemplate.execute("create sequence if not exists log_seq");
+            existing.addAll(readBuckets(jdbcTemplate));
+        }));
+        existing.forEach(this::create);
+        precreate();
+        log.info("log bucket 테이블 count={}", buckets.size());
+    }
+
+    @Scheduled(cron = "${springtx.log.retention.precreate-cron:0 0 * * * *}")
+    public void precreate() {
+        LocalDate today = LocalDate.now();
+        ensure(today);
+        ensure(today.plusDays(1));
+    }
+
+    // bucket 테이블이 없으면 모든 샤드에 만든다.
+    public void ensure(LocalDate bucket) {
+        if (!buckets.contains(bucket)) {
+            create(bucket);
+        }
+    }
+
+    private void create(LocalDate bucket) {
+        String table = tableName(bucket);
+        ShardContext.forEachShard(shardProperties, shard -> withOwnConnection(jdbcTemplate -> {
+            jdbcTemplate.execute("create table if not exists " + table
+                + " (id bigint primary key, message varchar(255), created_at timestamp(6))");
+            jdbcTemplate.execute("create index if not exists idx_" + table + "_message on " + table + " (message)");
+        }));
+        buckets.add(bucket);
+    }
+
+    // from 이후(포함) bucket, 최근 bucket 부터
+    public List<LocalDate> bucketsFrom(LocalDate from) {
+        return new ArrayList<>(buckets.tailSet(from, true).descendingSet());
+    }
+
+    public List<LocalDate> bucketsBefore(LocalDate cutoff) {
+        return new ArrayList<>(buckets.headSet(cutoff, false));
+    }
+
+    // bucket 테이블을 모든 샤드에서 지운다. 지우기 전에 목록에서 빼서 새 조회가 테이블을 보지 않게 한다.
+    public void drop(LocalDate bucket) {
+        buckets.remove(bucket);
+        String table = tableName(bucket);
+        ShardContext.forEachShard(shardProperties, shard -> withOwnConnection(jdbcTemplate ->
+            jdbcTemplate.execute("drop table if exists " + table)));
+    }
+
+    private List<LocalDate> readBuckets(JdbcTemplate jdbcTemplate) {
+        List<LocalDate> found = new ArrayList<>();
+        List<String> tables = jdbcTemplate.queryForList("select table_name from information_schema.tables"
+            + " where table_schema = current_schema and lower(table_name) like 'log\\_%'", String.class);
+        for (String table : tables) {
+            try {
+                found.add(LocalDate.parse(table.substring(PREFIX.length()), SUFFIX));
+            } catch (DateTimeParseException e) {
+                log.debug("bucket 테이블이 아님 table={}", table);
+            }
+        }
+        return found;
+    }
+
+    // 트랜잭션에 묶인 커넥션이 아니라 풀에서 새 커넥션을 얻어 autoCommit 으로 실행한다. (현재 샤드)
+    private void withOwnConnection(Consumer<JdbcTemplate> action) {
+        try (Connection connection = dataSource.getConnection()) {
+            action.accept(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("log 테이블 커넥션을 얻지 못했습니다.", e);
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package hello.springtx.propagation;
 
+import hello.springtx.shard.ShardGuardListener;
+import hello.springtx.shard.ShardKeyed;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
+@EntityListeners(ShardGuardListener.class)
 @Getter
 @Setter
-public class Member {
+public class Member implements ShardKeyed {
 
     @Id
     @GeneratedValue
@@ -21,4 +25,9 @@ public class Member {
     public Member(String username) {
         this.username = username;
     }
+
+    @Override
+    public String shardKey() {
+        return username;
+    }
 }
@@ -0,0 +1,14 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+// 회원가입 커밋 이후 전달되는 이벤트
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class MemberJoinedEvent {
+
+    private final String username;
+}
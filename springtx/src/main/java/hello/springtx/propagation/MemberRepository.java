@@ -1,10 +1,19 @@
 package hello.springtx.propagation;
 
 
+import hello.springtx.query.QueryStatsRecorder;
+import hello.springtx.query.SingleFlight;
+import hello.springtx.shard.ShardKey;
 import jakarta.persistence.EntityManager;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,16 +23,59 @@ import org.springframework.transaction.annotation.Transactional;
 public class MemberRepository
 {
     private final EntityManager em;
+    private final QueryStatsRecorder queryStats;
+    private final SingleFlight singleFlight;
 
-    @Transactional
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Transactional(timeoutString = "${springtx.tx.timeout.repository:3}")
     public void save(Member member) {
         log.info("member save");
         em.persist(member);
     }
 
-    public Optional<Member> find(String username) {
-        return em.createQuery("select m from Member m where m.username = :username", Member.class)
-            .setParameter("username", username)
-            .getResultList().stream().findAny();
+    // batch_size 단위로 flush 해서 insert 를 JDBC batch 로 보내고, 영속성 컨텍스트에서 분리한다.
+    @Transactional(timeoutString = "${springtx.tx.timeout.repository:3}")
+    public void saveAll(List<Member> members) {
+        log.info("member saveAll size={}", members.size());
+        for (int i = 0; i < members.size(); i++) {
+            em.persist(members.get(i));
+            if ((i + 1) % batchSize == 0 || i == members.size() - 1) {
+                em.flush();
+                members.subList(i / batchSize * batchSize, i + 1).forEach(em::detach);
+            }
+        }
+    }
+
+    // 트랜잭션 밖에서 같은 username 을 동시에 조회하면 쿼리 한 번으로 합친다. (SingleFlight)
+    public Optional<Member> find(@ShardKey String username) {
+        return singleFlight.execute("MemberRepository.find", username, () ->
+            queryStats.record("MemberRepository.find", () ->
+                em.createQuery("select m from Member m where m.username = :username", Member.class)
+                    .setParameter("username", username)
+                    .getResultList()).stream().findAny());
+    }
+
+    // 필요한 컬럼만 DTO 로 조회한다. 엔티티 스냅샷, dirty checking 이 없다.
+    @Transactional(readOnly = true)
+    public Optional<MemberView> findView(@ShardKey String username) {
+        return queryStats.record("MemberRepository.findView", () ->
+            em.createQuery("select new hello.springtx.propagation.MemberView(m.id, m.username)"
+                    + " from Member m where m.username = :username", MemberView.class)
+                .setParameter("username", username)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList()).stream().findAny();
+    }
+
+    // 회원 한 명씩 find 하지 않고 IN 쿼리 한 번으로 이미 존재하는 username 을 찾는다.
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(queryStats.record("MemberRepository.findExistingUsernames", () ->
+            em.createQuery("select m.username from Member m where m.username in :usernames", String.class)
+                .setParameter("usernames", usernames)
+                .getResultList()));
     }
 }
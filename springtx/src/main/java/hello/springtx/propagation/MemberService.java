@@ -1,26 +1,40 @@
 package hello.springtx.propagation;
 
-
+import hello.springtx.bulkhead.Bulkhead;
+import hello.springtx.cache.MemberWriteBehindCache;
+import hello.springtx.event.TxEventPublisher;
+import hello.springtx.shard.ShardKey;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-@Transactional
+@Transactional(timeoutString = "${springtx.tx.timeout.member:5}")
 public class MemberService {
 
     private final MemberRepository memberRepository;
     private final LogRepository logRepository;
+    private final TxEventPublisher eventPublisher;
+    // springtx.member.write-behind.enabled=true 일 때만 있다. 있으면 회원 저장, 조회가 캐시를 거친다.
+    private final ObjectProvider<MemberWriteBehindCache> writeBehindCache;
 
-    public void joinV1(String username) {
+    @Bulkhead("member")
+    public void joinV1(@ShardKey String username) {
         Member member = new Member(username);
         Log logMessage = new Log(username);
 
         log.info("== memberRepository 호출 시작 ==");
-        memberRepository.save(member);
+        saveMember(member);
+        eventPublisher.publish(new MemberJoinedEvent(username));
         log.info("== memberRepository 호출 종료 ==");
 
         log.info("== logRepository 호출 시작 ==");
@@ -29,14 +43,16 @@ public class MemberService {
     }
 
     // 로그 예외 처리
-    public void joinV2(String username) {
+    @Bulkhead("member")
+    public void joinV2(@ShardKey String username) {
         // 로그 저장 실패로 인한 비즈니스 로직이 실패하는 경우가 싫다. -> 예외 잡자
 
         Member member = new Member(username);
         Log logMessage = new Log(username);
 
         log.info("== memberRepository 호출 시작 ==");
-        memberRepository.save(member); // 트랜잭션 각각 사용하는 예제
+        saveMember(member); // 트랜잭션 각각 사용하는 예제
+        eventPublisher.publish(new MemberJoinedEvent(username));
         log.info("== memberRepository 호출 종료 ==");
 
         log.info("== logRepository 호출 시작 ==");
@@ -49,4 +65,71 @@ public class MemberService {
         log.info("== logRepository 호출 종료 ==");
     }
 
+    @Bulkhead("member")
+    public JoinResult joinAll(List<String> usernames) {
+        return joinAll(usernames, JoinMode.ALL_OR_NOTHING);
+    }
+
+    // 대량 가입 : 중복 확인 IN 쿼리 1번 + 회원 batch insert + 로그 batch insert
+    @Bulkhead("member")
+    public JoinResult joinAll(List<String> usernames, JoinMode mode) {
+        MemberWriteBehindCache cache = writeBehindCache.getIfAvailable();
+        Set<String> existing = cache == null ? memberRepository.findExistingUsernames(usernames)
+            : cache.findExistingUsernames(usernames);
+        Set<String> accepted = new LinkedHashSet<>();
+        List<String> duplicates = new ArrayList<>();
+        for (String username : usernames) {
+            if (existing.contains(username) || !accepted.add(username)) {
+                duplicates.add(username);
+            }
+        }
+
+        log.info("== memberRepository 호출 시작 == size={}", accepted.size());
+        if (cache == null) {
+            memberRepository.saveAll(accepted.stream().map(Member::new).toList());
+        } else {
+            accepted.forEach(username -> cache.save(new Member(username)));
+        }
+        accepted.forEach(username -> eventPublisher.publish(new MemberJoinedEvent(username)));
+        log.info("== memberRepository 호출 종료 ==");
+
+        log.info("== logRepository 호출 시작 == mode={}", mode);
+        List<String> failedLogs = new ArrayList<>();
+        try {
+            logRepository.saveAll(accepted.stream().map(Log::new).toList());
+        } catch (RuntimeException e) {
+            if (mode == JoinMode.ALL_OR_NOTHING) {
+                throw e; // 외부 트랜잭션까지 롤백
+            }
+            // 로그 batch 는 REQUIRES_NEW 로 이미 롤백됐다. 한 건씩 다시 저장해서 실패한 건만 제외한다.
+            log.info("log batch 저장 실패 -> 건별 저장");
+            for (String username : accepted) {
+                try {
+                    logRepository.save(new Log(username));
+                } catch (RuntimeException itemException) {
+                    log.info("log 저장에 실패했습니다. username={}", username);
+                    failedLogs.add(username);
+                }
+            }
+        }
+        log.info("== logRepository 호출 종료 ==");
+
+        return new JoinResult(List.copyOf(accepted), duplicates, failedLogs);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Member> findMember(@ShardKey String username) {
+        MemberWriteBehindCache cache = writeBehindCache.getIfAvailable();
+        return cache == null ? memberRepository.find(username) : cache.find(username);
+    }
+
+    // write-behind 캐시가 켜져 있으면 가입 트랜잭션이 커밋된 이후 캐시에 넣고, flush 때 저장한다.
+    private void saveMember(Member member) {
+        MemberWriteBehindCache cache = writeBehindCache.getIfAvailable();
+        if (cache == null) {
+            memberRepository.save(member);
+        } else {
+            cache.save(member);
+        }
+    }
 }
@@ -0,0 +1,5 @@
+package hello.springtx.propagation;
+
+// 조회 전용 회원 projection (영속성 컨텍스트에 올라가지 않는다)
+public record MemberView(Long id, String username) {
+}
@@ -0,0 +1,44 @@
+package hello.springtx.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * 하이버네이트가 실행하는 모든 SQL 을 가로챈다.
+ * QueryStatsRecorder 가 조회를 감싸는 동안에만 현재 스레드에서 실행된 SQL 을 모아둔다.
+ * SQL 자체는 변경하지 않는다.
+ */
+@Component
+public class QueryStatementInspector implements StatementInspector {
+
+    private final ThreadLocal<List<String>> capture = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = capture.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    List<String> startCapture() {
+        List<String> previous = capture.get();
+        capture.set(new ArrayList<>());
+        return previous;
+    }
+
+    List<String> stopCapture(List<String> previous) {
+        List<String> statements = capture.get();
+        if (previous == null) {
+            capture.remove();
+        } else {
+            // 중첩된 조회라면 바깥 조회에도 실행된 SQL 을 포함시킨다.
+            previous.addAll(statements);
+            capture.set(previous);
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,84 @@
+package hello.springtx.query;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 조회 하나(ex. MemberRepository.find)에 대한 누적 통계.
+ * 실행 시간은 최근 reservoirSize 개를 링 버퍼에 보관해서 p99 를 계산한다.
+ */
+public class QueryStats {
+
+    private final LongAdder executionCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder nPlusOneCount = new LongAdder();
+    private final LongAdder slowCount = new LongAdder();
+
+    private final long[] reservoir;
+    private final AtomicLong cursor = new AtomicLong();
+
+    public QueryStats(int reservoirSize) {
+        this.reservoir = new long[Math.max(1, reservoirSize)];
+    }
+
+    void record(long elapsedNanos, int rowCount, int statementCount, boolean nPlusOne, boolean slow) {
+        executionCount.increment();
+        totalNanos.add(elapsedNanos);
+        rows.add(rowCount);
+        statements.add(statementCount);
+        if (nPlusOne) {
+            nPlusOneCount.increment();
+        }
+        if (slow) {
+            slowCount.increment();
+        }
+        int index = (int) (cursor.getAndIncrement() % reservoir.length);
+        reservoir[index] = elapsedNanos;
+    }
+
+    public long getExecutionCount() {
+        return executionCount.sum();
+    }
+
+    public double getMeanMillis() {
+        long count = executionCount.sum();
+        return count == 0 ? 0 : toMillis(totalNanos.sum()) / count;
+    }
+
+    public double getP99Millis() {
+        int size = (int) Math.min(cursor.get(), reservoir.length);
+        if (size == 0) {
+            return 0;
+        }
+        long[] samples = Arrays.copyOf(reservoir, size);
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(size * 0.99) - 1;
+        return toMillis(samples[Math.max(0, index)]);
+    }
+
+    public long getNPlusOneCount() {
+        return nPlusOneCount.sum();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("executionCount", getExecutionCount());
+        snapshot.put("meanMillis", getMeanMillis());
+        snapshot.put("p99Millis", getP99Millis());
+        snapshot.put("rows", rows.sum());
+        snapshot.put("statements", statements.sum());
+        snapshot.put("nPlusOne", getNPlusOneCount());
+        snapshot.put("slow", slowCount.sum());
+        return snapshot;
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
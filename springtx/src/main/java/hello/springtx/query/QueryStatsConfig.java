@@ -0,0 +1,16 @@
+package hello.springtx.query;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QueryStatsConfig {
+
+    // 스프링 빈으로 등록된 inspector 인스턴스를 하이버네이트에 직접 넘긴다.
+    @Bean
+    public HibernatePropertiesCustomizer queryStatementInspectorCustomizer(QueryStatementInspector inspector) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+}
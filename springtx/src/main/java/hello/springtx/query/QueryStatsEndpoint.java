@@ -0,0 +1,50 @@
+package hello.springtx.query;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * 쿼리 통계 엔드포인트 (actuator: querystats)
+ * queries   : QueryStatsRecorder 가 기록한 조회별 통계
+ * hibernate : 하이버네이트 Statistics 의 엔티티 load/insert/update 카운트
+ */
+@Component
+@Endpoint(id = "querystats")
+@RequiredArgsConstructor
+public class QueryStatsEndpoint {
+
+    private final QueryStatsRecorder recorder;
+    private final EntityManagerFactory emf;
+
+    @ReadOperation
+    public Map<String, Object> queryStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("queries", recorder.snapshot());
+        result.put("hibernate", hibernateStats());
+        return result;
+    }
+
+    private Map<String, Object> hibernateStats() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("prepareStatementCount", statistics.getPrepareStatementCount());
+        result.put("queryExecutionCount", statistics.getQueryExecutionCount());
+        result.put("queryExecutionMaxTime", statistics.getQueryExecutionMaxTime());
+        result.put("queryExecutionMaxTimeQueryString", statistics.getQueryExecutionMaxTimeQueryString());
+        result.put("entityLoadCount", statistics.getEntityLoadCount());
+        result.put("entityFetchCount", statistics.getEntityFetchCount());
+        result.put("entityInsertCount", statistics.getEntityInsertCount());
+        result.put("entityUpdateCount", statistics.getEntityUpdateCount());
+        result.put("entityDeleteCount", statistics.getEntityDeleteCount());
+        result.put("flushCount", statistics.getFlushCount());
+        return result;
+    }
+}
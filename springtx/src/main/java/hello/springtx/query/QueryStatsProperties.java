@@ -0,0 +1,24 @@
+package hello.springtx.query;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "springtx.query")
+public class QueryStatsProperties {
+
+    // 이 시간을 넘는 쿼리만 slow query 로 기록한다.
+    private Duration slowThreshold = Duration.ofMillis(200);
+
+    // slow query 중 실제로 로그를 남길 비율 (0.0 ~ 1.0)
+    private double slowSampleRate = 1.0;
+
+    // 한 번의 조회에서 이 개수를 넘는 SQL 이 실행되면 N+1 로 판단한다.
+    private int maxStatementsPerQuery = 5;
+
+    // p99 계산을 위해 쿼리별로 보관하는 최근 실행 시간 샘플 수
+    private int reservoirSize = 1024;
+}
@@ -0,0 +1,72 @@
+package hello.springtx.query;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 리포지토리 조회를 감싸서 실행 횟수, 평균/p99 시간, 반환 row 수를 기록한다.
+ * 조회 한 번에 실행된 SQL 이 maxStatementsPerQuery 를 넘으면 N+1 로 판단한다.
+ * 지금의 리포지토리 조회는 연관관계가 없는 단건 쿼리라서 스스로는 넘지 않는다. 연관관계 지연 로딩이나,
+ * 조회 안에서 다른 조회를 반복하는 경우(중첩된 record 의 SQL 은 바깥에 합산된다)에 잡힌다.
+ * 하이버네이트를 거치는 SQL 만 센다. (JdbcTemplate 으로 조회하는 LogRepository 는 0 으로 기록된다)
+ *
+ * 모든 SQL 을 DEBUG 로 남기는 대신, slowThreshold 를 넘는 조회만 slowSampleRate 비율로 로그를 남긴다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryStatsRecorder {
+
+    private final QueryStatementInspector inspector;
+    private final QueryStatsProperties properties;
+    private final Map<String, QueryStats> stats = new ConcurrentHashMap<>();
+
+    public <T> List<T> record(String queryName, Supplier<List<T>> query) {
+        List<String> previous = inspector.startCapture();
+        long start = System.nanoTime();
+        List<T> result = null;
+        try {
+            result = query.get();
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            List<String> statements = inspector.stopCapture(previous);
+            int rows = result == null ? 0 : result.size();
+            afterQuery(queryName, elapsed, rows, statements);
+        }
+    }
+
+    public QueryStats getStats(String queryName) {
+        return stats.get(queryName);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        stats.forEach((name, queryStats) -> snapshot.put(name, queryStats.snapshot()));
+        return snapshot;
+    }
+
+    private void afterQuery(String queryName, long elapsedNanos, int rows, List<String> statements) {
+        boolean nPlusOne = statements.size() > properties.getMaxStatementsPerQuery();
+        boolean slow = elapsedNanos > properties.getSlowThreshold().toNanos();
+
+        stats.computeIfAbsent(queryName, name -> new QueryStats(properties.getReservoirSize()))
+            .record(elapsedNanos, rows, statements.size(), nPlusOne, slow);
+
+        if (nPlusOne) {
+            log.warn("N+1 의심 query={} statements={} first={}", queryName, statements.size(),
+                statements.get(0));
+        }
+        if (slow && ThreadLocalRandom.current().nextDouble() < properties.getSlowSampleRate()) {
+            log.warn("slow query={} elapsedMs={} rows={} sql={}", queryName, elapsedNanos / 1_000_000,
+                rows, statements);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package hello.springtx.query;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 같은 key 로 동시에 들어온 조회를 쿼리 한 번으로 합친다. 먼저 들어온 호출(leader)이 조회하고,
+ * 조회가 끝나기 전에 들어온 호출(follower)은 그 결과를 기다려서 함께 받는다.
+ *
+ * 트랜잭션 밖의 조회만 합친다.
+ * - 트랜잭션 안 (읽기 전용 포함) : 결과 엔티티가 자신의 영속성 컨텍스트에 있어야 한다.
+ *   leader 의 엔티티를 받으면 다른 세션의 엔티티라서 지연 로딩, em.contains, 동일성 보장이 깨진다.
+ *   읽기/쓰기 트랜잭션은 커밋 전 자신의 쓰기도 봐야 한다.
+ * - 이 스레드가 마지막으로 쓰기를 커밋하기 전에 시작된 조회 : 자신이 커밋한 쓰기를 못 볼 수 있다.
+ *
+ * 트랜잭션 밖의 조회 결과는 어차피 준영속 엔티티다. follower 는 leader 와 같은 인스턴스를 받으므로 읽기 전용으로 다뤄야 한다.
+ * springtx.singleflight.calls (name, result=leader|collapsed|bypassed)
+ */
+@Slf4j
+@Component
+public class SingleFlight implements TransactionExecutionListener, MeterBinder {
+
+    private final Map<FlightKey, Flight> flights = new ConcurrentHashMap<>();
+    private final ThreadLocal<Long> lastWriteCommit = new ThreadLocal<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> loader) {
+        Counters counter = counters(name);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            counter.bypassed.increment();
+            return loader.get();
+        }
+
+        FlightKey flightKey = new FlightKey(name, key);
+        Flight flight = new Flight(System.nanoTime());
+        Flight inFlight = flights.putIfAbsent(flightKey, flight);
+        if (inFlight != null) {
+            Long lastWrite = lastWriteCommit.get();
+            if (lastWrite != null && inFlight.startNanos - lastWrite <= 0) {
+                counter.bypassed.increment();
+                return loader.get();
+            }
+            counter.collapsed.increment();
+            return (T) inFlight.join();
+        }
+
+        counter.leader.increment();
+        try {
+            T result = loader.get();
+            flight.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(flightKey, flight);
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            lastWriteCommit.set(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        counters.forEach((name, counter) -> counter.register(name, registry));
+    }
+
+    public long getCollapsedCount(String name) {
+        return counters(name).collapsed.sum();
+    }
+
+    public long getLeaderCount(String name) {
+        return counters(name).leader.sum();
+    }
+
+    public long getBypassedCount(String name) {
+        return counters(name).bypassed.sum();
+    }
+
+    private Counters counters(String name) {
+        return counters.computeIfAbsent(name, key -> {
+            Counters counter = new Counters();
+            MeterRegistry current = registry;
+            if (current != null) {
+                counter.register(key, current);
+            }
+            return counter;
+        });
+    }
+
+    private record FlightKey(String name, Object key) {
+    }
+
+    private static final class Flight {
+        private final long startNanos;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Flight(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        private Object join() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static final class Counters {
+        private final LongAdder leader = new LongAdder();
+        private final LongAdder collapsed = new LongAdder();
+        private final LongAdder bypassed = new LongAdder();
+
+        private void register(String name, MeterRegistry registry) {
+            FunctionCounter.builder("springtx.singleflight.calls", leader, LongAdder::sum)
+                .tags("name", name, "result", "leader").register(registry);
+            FunctionCounter.builder("springtx.singleflight.calls", collapsed, LongAdder::sum)
+                .tags("name", name, "result", "collapsed").register(registry);
+            FunctionCounter.builder("springtx.singleflight.calls", bypassed, LongAdder::sum)
+                .tags("name", name, "result", "bypassed").register(registry);
+        }
+    }
+}
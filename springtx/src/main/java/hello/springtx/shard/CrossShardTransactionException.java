@@ -0,0 +1,9 @@
+package hello.springtx.shard;
+
+// 하나의 트랜잭션 안에서 다른 샤드의 데이터에 접근하려고 할 때 발생한다. (런타임 예외 -> 롤백)
+public class CrossShardTransactionException extends RuntimeException {
+
+    public CrossShardTransactionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,95 @@
+package hello.springtx.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Member, Log, Order, Account 를 샤드 키(username, message)의 해시로 N 개의 DataSource 에 나눠 저장한다.
+ * DataSource 빈을 직접 등록하므로 스프링 부트의 DataSource 자동 설정은 사용되지 않는다.
+ *
+ * id 생성기(pooled optimizer)는 프로세스에 하나라서, 현재 라우팅된 샤드의 시퀀스에서 id 블록(allocationSize)을 받아
+ * 다른 샤드의 insert 에도 사용한다. 샤드마다 시퀀스가 겹치지 않는 구간을 내도록 해서 id 가 전체 샤드에서 유일하게 한다.
+ *
+ * Log 는 엔티티가 아니라서 bucket 테이블과 log_seq 시퀀스를 LogTables 가 샤드마다 만든다. (구간 지정 전에 만들어진다)
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "springtx.shard", name = "enabled", havingValue = "true")
+public class ShardConfig {
+
+    @Bean
+    public ShardRoutingDataSource dataSource(ShardProperties properties) {
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (int i = 0; i < properties.getCount(); i++) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("shard-" + i);
+            shard.setJdbcUrl(String.format(properties.getUrlTemplate(), i));
+            shard.setUsername(properties.getUsername());
+            shard.setPassword(properties.getPassword());
+            shard.setMaximumPoolSize(properties.getMaximumPoolSize());
+            shards.add(shard);
+        }
+        log.info("shard DataSource count={}", shards.size());
+        return new ShardRoutingDataSource(shards);
+    }
+
+    // ddl-auto 는 기본 샤드(0번)에만 스키마를 만든다. 나머지 샤드에 매핑된 스키마를 그대로 생성하고, 시퀀스 구간을 나눈다.
+    @Bean
+    public SmartInitializingSingleton shardSchemaExporter(ShardProperties properties,
+                                                          ObjectProvider<EntityManagerFactory> emf,
+                                                          ShardRoutingDataSource dataSource) {
+        return () -> {
+            if (properties.isExportSchema()) {
+                SessionFactory sessionFactory = emf.getObject().unwrap(SessionFactory.class);
+                for (int i = 1; i < properties.getCount(); i++) {
+                    ShardContext.runIn(i, () -> sessionFactory.getSchemaManager().exportMappedObjects(true));
+                    log.info("shard {} 스키마 생성", i);
+                }
+            }
+            if (properties.getIdRangeSize() > 0) {
+                for (int i = 0; i < properties.getCount(); i++) {
+                    assignIdRange(new JdbcTemplate(dataSource.getShard(i)), i, properties.getIdRangeSize());
+                }
+            }
+        };
+    }
+
+    /**
+     * i 번 샤드의 시퀀스를 [i * rangeSize + 1, (i + 1) * rangeSize - increment] 로 제한한다.
+     * 시퀀스가 이미 구간 안에 있으면 다음 값은 그대로 두고 최대값만 지정한다. (재시작해도 id 가 다시 나오지 않는다)
+     * 최대값을 increment 만큼 낮춰 두어서, 구간 끝의 블록이 다음 샤드의 첫 블록과 겹치지 않는다.
+     * 구간을 다 쓰면 시퀀스 오류로 insert 가 실패한다. (다른 샤드의 id 와 겹치지 않는다)
+     *
+     * information_schema.sequences 의 BASE_VALUE(다음 값)는 H2 기준이다.
+     */
+    private void assignIdRange(JdbcTemplate jdbcTemplate, int shard, long rangeSize) {
+        long start = shard * rangeSize + 1;
+        List<Map<String, Object>> sequences = jdbcTemplate.queryForList(
+            "select sequence_schema, sequence_name, base_value, increment"
+                + " from information_schema.sequences where sequence_schema = current_schema");
+        for (Map<String, Object> sequence : sequences) {
+            long increment = toLong(sequence.get("increment"));
+            long max = (shard + 1) * rangeSize - increment;
+            long next = toLong(sequence.get("base_value"));
+            String restart = next < start || next > max ? " restart with " + start : "";
+            jdbcTemplate.execute("alter sequence \"" + sequence.get("sequence_schema") + "\".\""
+                + sequence.get("sequence_name") + "\"" + restart + " maxvalue " + max);
+            log.info("shard {} sequence {} id 구간 [{}, {}]", shard, sequence.get("sequence_name"), start, max);
+        }
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+    }
+}
@@ -0,0 +1,97 @@
+package hello.springtx.shard;
+
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 현재 스레드가 사용할 샤드와, 진행 중인 트랜잭션이 묶인 샤드를 관리한다.
+ *
+ * 샤드 라우팅은 커넥션을 얻는 시점에 결정된다. 트랜잭션은 시작할 때 커넥션을 얻으므로
+ * 트랜잭션 안에서 샤드를 바꿔도 같은 커넥션(= 같은 샤드)을 계속 사용한다.
+ * 그래서 트랜잭션이 묶인 샤드를 따로 기록해 두고, 다른 샤드에 대한 쓰기를 막는다.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int shardOf(String key, int shardCount) {
+        return Math.floorMod(key.hashCode(), shardCount);
+    }
+
+    // 지정하지 않으면 0번 샤드
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public static <T> T callIn(int shard, Supplier<T> action) {
+        Integer previous = set(shard);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static void runIn(int shard, Runnable action) {
+        callIn(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // key 의 샤드에서 실행한다. 샤딩을 사용하지 않으면 그대로 실행한다. (@ShardKey 를 붙일 수 없는 호출용)
+    public static <T> T callFor(ShardProperties properties, String key, Supplier<T> action) {
+        return properties.isEnabled() ? callIn(shardOf(key, properties.getCount()), action) : action.get();
+    }
+
+    // 샤드마다 한 번씩 실행한다. 샤딩을 사용하지 않으면 한 번만 실행한다. (배치 작업용)
+    public static void forEachShard(ShardProperties properties, IntConsumer action) {
+        int count = properties.isEnabled() ? properties.getCount() : 1;
+        for (int shard = 0; shard < count; shard++) {
+            int current = shard;
+            runIn(current, () -> action.accept(current));
+        }
+    }
+
+    @Nullable
+    static Integer set(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(@Nullable Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    // 진행 중인 트랜잭션이 묶인 샤드. 트랜잭션이 없거나 샤딩을 사용하지 않으면 null
+    @Nullable
+    public static TransactionShard transactionShard() {
+        return (TransactionShard) TransactionSynchronizationManager.getResource(TransactionShard.class);
+    }
+
+    public static void checkWrite(String key) {
+        TransactionShard transactionShard = transactionShard();
+        if (transactionShard == null || key == null) {
+            return;
+        }
+        int shard = shardOf(key, transactionShard.count());
+        if (shard != transactionShard.shard()) {
+            throw new CrossShardTransactionException("shard " + transactionShard.shard()
+                + " 트랜잭션에서 shard " + shard + " 데이터를 쓸 수 없습니다. key=" + key);
+        }
+    }
+
+    public record TransactionShard(int shard, int count) {
+    }
+}
@@ -0,0 +1,18 @@
+package hello.springtx.shard;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+import jakarta.persistence.PreUpdate;
+
+// JPA 엔티티 리스너. 샤딩을 사용하지 않으면 트랜잭션 샤드가 없어서 아무것도 하지 않는다.
+public class ShardGuardListener {
+
+    @PrePersist
+    @PreUpdate
+    @PreRemove
+    void checkShard(Object entity) {
+        if (entity instanceof ShardKeyed keyed) {
+            ShardContext.checkWrite(keyed.shardKey());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package hello.springtx.shard;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 샤드를 결정하는 파라미터. String 이면 그대로, ShardKeyed 면 shardKey() 를 샤드 키로 사용한다.
+ * 트랜잭션 AOP 보다 먼저 샤드가 정해져야 트랜잭션 시작 시점에 해당 샤드의 커넥션을 얻는다. (ShardKeyAspect)
+ */
+@Documented
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+}
@@ -0,0 +1,88 @@
+package hello.springtx.shard;
+
+import hello.springtx.shard.ShardContext.TransactionShard;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+/**
+ * @ShardKey 파라미터로 샤드를 정하고 메서드를 실행한다.
+ * 트랜잭션 AOP 보다 바깥에서 실행되어야 트랜잭션이 시작할 때 해당 샤드의 커넥션을 얻는다.
+ *
+ * 이미 다른 샤드의 트랜잭션이 진행 중인데 그 트랜잭션에 참여하는 호출이면 CrossShardTransactionException.
+ * REQUIRES_NEW, NOT_SUPPORTED 는 새 커넥션을 얻으므로 다른 샤드여도 된다.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(prefix = "springtx.shard", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ShardKeyAspect {
+
+    private final ShardProperties properties;
+    private final TransactionAttributeSource transactionAttributeSource;
+
+    @Around("execution(* *(.., @hello.springtx.shard.ShardKey (*), ..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String key = shardKey(method, joinPoint.getArgs());
+        if (key == null) {
+            return joinPoint.proceed();
+        }
+        int shard = ShardContext.shardOf(key, properties.getCount());
+
+        TransactionShard transactionShard = ShardContext.transactionShard();
+        if (transactionShard != null && transactionShard.shard() != shard
+            && joinsCurrentTransaction(method, AopUtils.getTargetClass(joinPoint.getTarget()))) {
+            throw new CrossShardTransactionException("shard " + transactionShard.shard() + " 트랜잭션에서 shard "
+                + shard + " 를 사용할 수 없습니다. method=" + joinPoint.getSignature().toShortString() + " key=" + key);
+        }
+
+        Integer previous = ShardContext.set(shard);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    @Nullable
+    private String shardKey(Method method, Object[] args) {
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof ShardKey) {
+                    Object arg = args[i];
+                    if (arg instanceof ShardKeyed keyed) {
+                        return keyed.shardKey();
+                    }
+                    return arg == null ? null : arg.toString();
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean joinsCurrentTransaction(Method method, Class<?> targetClass) {
+        TransactionAttribute attribute = transactionAttributeSource.getTransactionAttribute(method, targetClass);
+        if (attribute == null) {
+            return true; // 트랜잭션이 없는 메서드는 진행 중인 트랜잭션의 EntityManager(커넥션)를 그대로 사용한다.
+        }
+        int propagation = attribute.getPropagationBehavior();
+        return propagation != TransactionDefinition.PROPAGATION_REQUIRES_NEW
+            && propagation != TransactionDefinition.PROPAGATION_NOT_SUPPORTED;
+    }
+}
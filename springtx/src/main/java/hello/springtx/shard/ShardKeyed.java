@@ -0,0 +1,7 @@
+package hello.springtx.shard;
+
+// 샤드 키를 가진 엔티티. 저장/수정/삭제 시 현재 트랜잭션의 샤드와 같은지 검사한다. (ShardGuardListener)
+public interface ShardKeyed {
+
+    String shardKey();
+}
@@ -0,0 +1,31 @@
+package hello.springtx.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "springtx.shard")
+public class ShardProperties {
+
+    // false 면 기존처럼 DataSource 하나를 사용한다.
+    private boolean enabled = false;
+
+    private int count = 2;
+
+    // %d 자리에 샤드 번호가 들어간다.
+    private String urlTemplate = "jdbc:h2:mem:springtx-shard%d;DB_CLOSE_DELAY=-1";
+    private String username = "sa";
+    private String password = "";
+
+    // 샤드별 커넥션 풀 크기
+    private int maximumPoolSize = 10;
+
+    // 0번 샤드는 hibernate ddl-auto 가 만든다. 나머지 샤드에도 같은 스키마를 생성한다. (인메모리 DB 용)
+    private boolean exportSchema = true;
+
+    // 샤드마다 겹치지 않는 id 구간을 시퀀스에 할당한다. i 번 샤드 = [i * idRangeSize + 1, (i + 1) * idRangeSize)
+    // 0 이면 시퀀스를 건드리지 않는다.
+    private long idRangeSize = 1_000_000_000_000L;
+}
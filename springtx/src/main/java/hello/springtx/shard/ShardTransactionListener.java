@@ -0,0 +1,49 @@
+package hello.springtx.shard;
+
+import hello.springtx.shard.ShardContext.TransactionShard;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 신규 물리 트랜잭션이 시작되면 커넥션을 얻은 샤드를 트랜잭션 리소스로 기록한다.
+ * REQUIRES_NEW 로 보류된 트랜잭션의 샤드는 보류/재개에 맞춰 함께 풀고 다시 묶는다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "springtx.shard", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ShardTransactionListener implements TransactionExecutionListener {
+
+    private final ShardProperties properties;
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        if (beginFailure != null || !transaction.isNewTransaction() || transaction.isNested()
+            || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionShard shard = new TransactionShard(ShardContext.current(), properties.getCount());
+        TransactionSynchronizationManager.bindResource(TransactionShard.class, shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(TransactionShard.class);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(TransactionShard.class, shard);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TransactionShard.class);
+            }
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package hello.springtx.startup;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 프로세스 시작부터 첫 트랜잭션이 커밋될 때까지의 시간을 잰다. (./gradlew startupBenchmark)
+ * JVM, AOT, CDS, native image 모두 같은 방식으로 측정하도록 프로세스 시작 시각을 OS 에서 읽는다.
+ *
+ * AOT, native image 는 빌드(processAot) 시점에 @ConditionalOnProperty 를 평가해서 빈 등록 여부가 고정된다.
+ * 실행 인자(--springtx.startup.benchmark=true)가 적용되도록 빈은 항상 등록하고 실행 시점에 확인한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartupBenchmark implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final PlatformTransactionManager txManager;
+    private final MemberRepository memberRepository;
+
+    @Value("${springtx.startup.benchmark:false}")
+    private boolean enabled;
+
+    @Value("${springtx.startup.mode:jvm}")
+    private String mode;
+
+    // true 면 측정 후 종료한다. (CDS 학습 실행, 벤치마크 반복 실행)
+    @Value("${springtx.startup.exit:false}")
+    private boolean exit;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        AtomicLong committedAt = new AtomicLong();
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            memberRepository.save(new Member("startup-benchmark-" + System.nanoTime()));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    committedAt.set(System.currentTimeMillis());
+                }
+            });
+        });
+        long processStart = processStartMillis();
+        log.info("STARTUP mode={} ready-ms={} first-commit-ms={}", mode,
+            event.getTimeTaken().toMillis(), committedAt.get() - processStart);
+
+        if (exit) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    private long processStartMillis() {
+        return ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElseGet(() -> ManagementFactory.getRuntimeMXBean().getStartTime());
+    }
+}
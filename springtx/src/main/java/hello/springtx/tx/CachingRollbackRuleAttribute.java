@@ -0,0 +1,30 @@
+package hello.springtx.tx;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.transaction.interceptor.DelegatingTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+
+/**
+ * rollbackFor / noRollbackFor 규칙 평가 결과를 예외 클래스별로 캐시한다.
+ * 규칙 평가는 예외 클래스 계층만 보고 결정되므로, 같은 예외 클래스라면 결과도 항상 같다.
+ * 인스턴스는 메서드별로 하나 -> 메서드 × 예외 클래스 단위 캐시
+ */
+public class CachingRollbackRuleAttribute extends DelegatingTransactionAttribute {
+
+    private final Map<Class<?>, Boolean> decisions = new ConcurrentHashMap<>();
+
+    public CachingRollbackRuleAttribute(TransactionAttribute targetAttribute) {
+        super(targetAttribute);
+    }
+
+    @Override
+    public boolean rollbackOn(Throwable ex) {
+        Boolean decision = decisions.get(ex.getClass());
+        if (decision == null) {
+            decision = super.rollbackOn(ex);
+            decisions.put(ex.getClass(), decision);
+        }
+        return decision;
+    }
+}
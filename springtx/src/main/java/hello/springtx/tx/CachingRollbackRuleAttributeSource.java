@@ -0,0 +1,43 @@
+package hello.springtx.tx;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.core.MethodClassKey;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+/**
+ * 원래의 TransactionAttributeSource 가 찾은 속성을 CachingRollbackRuleAttribute 로 감싼다.
+ */
+public class CachingRollbackRuleAttributeSource implements TransactionAttributeSource {
+
+    private static final TransactionAttribute NO_TRANSACTION = new DefaultTransactionAttribute();
+
+    private final TransactionAttributeSource delegate;
+    private final Map<MethodClassKey, TransactionAttribute> attributes = new ConcurrentHashMap<>();
+
+    public CachingRollbackRuleAttributeSource(TransactionAttributeSource delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isCandidateClass(Class<?> targetClass) {
+        return delegate.isCandidateClass(targetClass);
+    }
+
+    @Override
+    @Nullable
+    public TransactionAttribute getTransactionAttribute(Method method, @Nullable Class<?> targetClass) {
+        MethodClassKey key = new MethodClassKey(method, targetClass);
+        TransactionAttribute attribute = attributes.get(key);
+        if (attribute == null) {
+            TransactionAttribute target = delegate.getTransactionAttribute(method, targetClass);
+            attribute = target == null ? NO_TRANSACTION : new CachingRollbackRuleAttribute(target);
+            attributes.put(key, attribute);
+        }
+        return attribute == NO_TRANSACTION ? null : attribute;
+    }
+}
@@ -0,0 +1,26 @@
+package hello.springtx.tx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// 하이버네이트 flush (dirty checking + insert/update/delete 실행)
+@Name("hello.springtx.Flush")
+@Label("Hibernate Flush")
+@Category({"springtx", "Hibernate"})
+@Description("Hibernate session flush")
+@StackTrace(false)
+public class FlushJfrEvent extends Event {
+
+    @Label("Transaction Name")
+    String transactionName;
+
+    @Label("Entities")
+    int entityCount;
+
+    @Label("Collections")
+    int collectionCount;
+}
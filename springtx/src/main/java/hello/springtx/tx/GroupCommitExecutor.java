@@ -0,0 +1,247 @@
+package hello.springtx.tx;
+
+import hello.springtx.shard.ShardContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 동시에 들어온 작은 쓰기 작업들을 모아서 하나의 물리 트랜잭션으로 커밋한다. (group commit)
+ * 커밋(fsync) 비용을 여러 작업이 나눠 낸다. 사용하는 쪽에서 직접 submit 할 때만 적용된다.
+ *
+ * - 전용 스레드가 window 동안(최대 maxBatch 건) 작업을 모아 하나의 트랜잭션에서 순서대로 실행한다.
+ * - 각 작업의 future 는 트랜잭션이 커밋된 이후에 완료된다.
+ *   future 는 group-commit-callback 스레드에서 완료한다. (thenApply 같은 콜백이 전용 스레드를 막지 않는다)
+ *   콜백에서 다른 작업을 submit 하고 join 해도 전용 스레드는 계속 그룹을 커밋한다.
+ * - 그룹이 실패하면(한 작업의 예외, 커밋 시 제약 조건 위반 등) 롤백하고 각 작업을 자신만의 트랜잭션으로 다시 실행한다.
+ *   실패한 작업만 예외로 완료되고 나머지는 정상 커밋된다.
+ *
+ * submit 한 스레드의 샤드(ShardContext)를 기록해 두고, 모은 작업을 샤드별로 나눠서 각 샤드의 트랜잭션으로 커밋한다.
+ * (샤딩을 사용하지 않으면 모두 같은 그룹)
+ *
+ * 종료할 때 shutdownTimeout 동안 남은 작업을 처리하고, 그 뒤에 대기열에 남은 작업은 RejectedExecutionException 으로 완료한다.
+ *
+ * 작업은 다시 실행될 수 있으므로 엔티티는 작업 안에서 새로 만들어야 한다.
+ * (롤백된 persist 의 엔티티는 id 가 남아 있어서 다시 persist 할 수 없다)
+ */
+@Slf4j
+@Component
+public class GroupCommitExecutor implements MeterBinder, DisposableBean {
+
+    private final TransactionTemplate template;
+    private final GroupCommitProperties properties;
+    private final BlockingQueue<Item<?>> queue;
+    private final ExecutorService completion = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "group-commit-callback");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder groups = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+
+    private volatile boolean running = true;
+    private volatile Thread worker;
+
+    public GroupCommitExecutor(PlatformTransactionManager txManager, GroupCommitProperties properties) {
+        this.template = new TransactionTemplate(txManager);
+        this.template.setName(GroupCommitExecutor.class.getName() + ".group");
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("group commit executor 종료"));
+        }
+        Item<T> item = new Item<>(work, ShardContext.current());
+        if (!queue.offer(item)) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("group commit 대기열이 가득 찼습니다."));
+        }
+        if (!running) {
+            // offer 하는 사이에 종료됨 -> 전용 스레드나 destroy 가 가져가지 않았으면 직접 거절한다.
+            if (queue.remove(item)) {
+                item.future.completeExceptionally(new RejectedExecutionException("group commit executor 종료"));
+            }
+            return item.future;
+        }
+        startWorker();
+        return item.future;
+    }
+
+    private void startWorker() {
+        if (worker != null) {
+            return;
+        }
+        synchronized (this) {
+            if (worker == null) {
+                Thread thread = new Thread(this::run, "group-commit");
+                thread.setDaemon(true);
+                thread.start();
+                worker = thread;
+            }
+        }
+    }
+
+    private void run() {
+        List<Item<?>> group = new ArrayList<>();
+        long windowNanos = properties.getWindow().toNanos();
+        while (running || !queue.isEmpty()) {
+            try {
+                Item<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < properties.getMaxBatch()) {
+                    long remaining = deadline - System.nanoTime();
+                    Item<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                // 종료 중 -> 모아둔 작업까지 커밋하고 남은 대기열을 계속 처리한다.
+                running = false;
+            }
+            if (!group.isEmpty()) {
+                byShard(group).forEach((shard, shardGroup) -> ShardContext.runIn(shard, () -> commit(shardGroup)));
+                group.clear();
+            }
+        }
+    }
+
+    private static Map<Integer, List<Item<?>>> byShard(List<Item<?>> group) {
+        Map<Integer, List<Item<?>>> groups = new LinkedHashMap<>();
+        for (Item<?> item : group) {
+            groups.computeIfAbsent(item.shard, shard -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    // group 은 한 샤드의 작업이다.
+    private void commit(List<Item<?>> group) {
+        groups.increment();
+        items.add(group.size());
+        List<Object> results;
+        try {
+            results = template.execute(status -> {
+                List<Object> values = new ArrayList<>(group.size());
+                for (Item<?> item : group) {
+                    values.add(item.work.get());
+                }
+                return values;
+            });
+        } catch (RuntimeException | Error e) {
+            if (group.size() == 1) {
+                fail(group.get(0), e);
+                return;
+            }
+            log.info("group commit 실패 -> 개별 재시도 size={} ex={}", group.size(), e.toString());
+            retried.add(group.size());
+            group.forEach(this::commitAlone);
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            complete(group.get(i), results.get(i));
+        }
+    }
+
+    private void commitAlone(Item<?> item) {
+        Object result;
+        try {
+            result = template.execute(status -> item.work.get());
+        } catch (RuntimeException | Error e) {
+            fail(item, e);
+            return;
+        }
+        complete(item, result);
+    }
+
+    private void complete(Item<?> item, Object result) {
+        onCompletionThread(() -> item.complete(result));
+    }
+
+    private void fail(Item<?> item, Throwable e) {
+        onCompletionThread(() -> item.future.completeExceptionally(e));
+    }
+
+    private void onCompletionThread(Runnable action) {
+        try {
+            completion.execute(action);
+        } catch (RejectedExecutionException e) {
+            action.run(); // 종료 이후 (shutdownTimeout 이 지난 뒤 끝난 작업)
+        }
+    }
+
+    public long getGroupCount() {
+        return groups.sum();
+    }
+
+    public long getRetriedCount() {
+        return retried.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("springtx.groupcommit.groups", groups, LongAdder::sum)
+            .description("커밋한 그룹 트랜잭션 수").register(registry);
+        FunctionCounter.builder("springtx.groupcommit.items", items, LongAdder::sum)
+            .description("그룹으로 실행한 작업 수").register(registry);
+        FunctionCounter.builder("springtx.groupcommit.retried", retried, LongAdder::sum)
+            .description("그룹 실패로 개별 재시도한 작업 수").register(registry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        Thread thread = worker;
+        if (thread != null) {
+            thread.join(properties.getShutdownTimeout().toMillis());
+        }
+        List<Item<?>> rejected = new ArrayList<>();
+        queue.drainTo(rejected);
+        if (!rejected.isEmpty()) {
+            log.warn("group commit 종료 -> 처리하지 못한 작업 거절 size={}", rejected.size());
+        }
+        rejected.forEach(item -> fail(item, new RejectedExecutionException("group commit executor 종료")));
+        completion.shutdown();
+    }
+
+    private static final class Item<T> {
+        private final Supplier<T> work;
+        private final int shard;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Item(Supplier<T> work, int shard) {
+            this.work = work;
+            this.shard = shard;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(Object result) {
+            future.complete((T) result);
+        }
+    }
+}
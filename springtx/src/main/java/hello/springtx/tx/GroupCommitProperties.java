@@ -0,0 +1,24 @@
+package hello.springtx.tx;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "springtx.tx.group-commit")
+public class GroupCommitProperties {
+
+    // 첫 작업이 들어온 뒤 이 시간 동안 들어온 작업을 한 트랜잭션으로 묶는다. (= 추가되는 최대 지연)
+    private Duration window = Duration.ofMillis(5);
+
+    // 한 트랜잭션에 묶는 최대 작업 수
+    private int maxBatch = 100;
+
+    // 대기 중인 작업이 이보다 많으면 submit 을 거절한다.
+    private int queueCapacity = 10_000;
+
+    // 종료할 때 남은 작업을 처리하며 기다리는 최대 시간. 이후 대기열에 남은 작업은 거절한다.
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,33 @@
+package hello.springtx.tx;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 트랜잭션 시작/커밋/롤백, 보류/재개, 하이버네이트 flush 를 JFR 이벤트로 남긴다.
+ * GC, 락 이벤트와 같은 타임라인에서 트랜잭션 지연을 볼 수 있다. (./gradlew jfrRecord)
+ * 트랜잭션 이벤트는 트랜잭션 span(springtx.tx.tracing.enabled)에서 만든다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "springtx.tx.jfr", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JfrConfig {
+
+    @Bean
+    public JfrTransactionObservationHandler jfrTransactionObservationHandler() {
+        return new JfrTransactionObservationHandler();
+    }
+
+    @Bean
+    public JfrTransactionSuspendListener jfrTransactionSuspendListener() {
+        return new JfrTransactionSuspendListener();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer jfrFlushListenerCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+            JfrFlushSessionEventListener.class.getName());
+    }
+}
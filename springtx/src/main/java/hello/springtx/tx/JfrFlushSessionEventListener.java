@@ -0,0 +1,37 @@
+package hello.springtx.tx;
+
+import org.hibernate.SessionEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 하이버네이트 flush 를 JFR 이벤트로 기록한다. (hibernate.session.events.auto)
+ * 하이버네이트가 세션마다 인스턴스를 하나씩 만든다.
+ */
+public class JfrFlushSessionEventListener implements SessionEventListener {
+
+    private FlushJfrEvent event;
+
+    @Override
+    public void flushStart() {
+        FlushJfrEvent flushEvent = new FlushJfrEvent();
+        if (flushEvent.isEnabled()) {
+            flushEvent.begin();
+            event = flushEvent;
+        }
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+            event.entityCount = numberOfEntities;
+            event.collectionCount = numberOfCollections;
+            event.commit();
+        }
+        event = null;
+    }
+}
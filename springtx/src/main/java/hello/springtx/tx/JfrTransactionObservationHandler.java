@@ -0,0 +1,67 @@
+package hello.springtx.tx;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+
+/**
+ * 트랜잭션 span(TracingTransactionManager)을 JFR 이벤트로 기록한다.
+ * JFR 이 기록 중이 아니면 이벤트 객체만 만들고 버린다.
+ */
+public class JfrTransactionObservationHandler implements ObservationHandler<Observation.Context> {
+
+    @Override
+    public void onStart(Observation.Context context) {
+        TransactionJfrEvent event = new TransactionJfrEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.begin();
+        context.put(TransactionJfrEvent.class, event);
+        TransactionBeginJfrEvent beginEvent = new TransactionBeginJfrEvent();
+        beginEvent.begin();
+        context.put(TransactionBeginJfrEvent.class, beginEvent);
+    }
+
+    @Override
+    public void onEvent(Observation.Event event, Observation.Context context) {
+        TransactionBeginJfrEvent beginEvent = context.get(TransactionBeginJfrEvent.class);
+        if (beginEvent == null || !TracingTransactionManager.BEGIN_EVENT.equals(event.getName())) {
+            return;
+        }
+        context.remove(TransactionBeginJfrEvent.class);
+        beginEvent.end();
+        if (beginEvent.shouldCommit()) {
+            beginEvent.name = value(context.getHighCardinalityKeyValue("name"));
+            beginEvent.kind = value(context.getLowCardinalityKeyValue("kind"));
+            beginEvent.propagation = value(context.getLowCardinalityKeyValue("propagation"));
+            beginEvent.commit();
+        }
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        TransactionJfrEvent event = context.get(TransactionJfrEvent.class);
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.name = value(context.getHighCardinalityKeyValue("name"));
+            event.kind = value(context.getLowCardinalityKeyValue("kind"));
+            event.propagation = value(context.getLowCardinalityKeyValue("propagation"));
+            event.readOnly = Boolean.parseBoolean(value(context.getLowCardinalityKeyValue("readOnly")));
+            event.outcome = value(context.getLowCardinalityKeyValue("outcome"));
+            event.commit();
+        }
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return TracingTransactionManager.OBSERVATION_NAME.equals(context.getName());
+    }
+
+    private static String value(KeyValue keyValue) {
+        return keyValue == null ? null : keyValue.getValue();
+    }
+}
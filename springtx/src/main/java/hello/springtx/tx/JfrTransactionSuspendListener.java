@@ -0,0 +1,50 @@
+package hello.springtx.tx;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 물리 트랜잭션이 보류(suspend)된 시간을 JFR 이벤트로 기록한다.
+ * 트랜잭션 동기화는 보류/재개 시 suspend(), resume() 이 호출된다. (LogRepository.save 의 REQUIRES_NEW 등)
+ */
+public class JfrTransactionSuspendListener implements TransactionExecutionListener {
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        if (beginFailure != null || !transaction.isNewTransaction() || transaction.isNested()
+            || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String name = transaction.getTransactionName();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            private TransactionSuspendJfrEvent event;
+
+            @Override
+            public void suspend() {
+                TransactionSuspendJfrEvent suspendEvent = new TransactionSuspendJfrEvent();
+                if (suspendEvent.isEnabled()) {
+                    suspendEvent.begin();
+                    event = suspendEvent;
+                }
+            }
+
+            @Override
+            public void resume() {
+                if (event == null) {
+                    return;
+                }
+                event.end();
+                if (event.shouldCommit()) {
+                    event.name = name;
+                    event.outcome = "resumed";
+                    event.commit();
+                }
+                event = null;
+            }
+        });
+    }
+}
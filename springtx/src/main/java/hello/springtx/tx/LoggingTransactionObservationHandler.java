@@ -0,0 +1,41 @@
+package hello.springtx.tx;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 트랜잭션 span 을 로그로 내보낸다. (logging.level.hello.springtx.tx=DEBUG)
+ * OpenTelemetry 등 실제 tracer 로 내보내려면 micrometer-tracing bridge 를 추가하면 같은 Observation 이 span 으로 전달된다.
+ */
+@Slf4j
+public class LoggingTransactionObservationHandler implements ObservationHandler<Observation.Context> {
+
+    private static final String START_TIME = LoggingTransactionObservationHandler.class.getName() + ".start";
+
+    @Override
+    public void onStart(Observation.Context context) {
+        context.put(START_TIME, System.nanoTime());
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        Long start = context.get(START_TIME);
+        long elapsedMicros = start == null ? -1 : TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        ObservationView parent = context.getParentObservation();
+        log.debug("[tx span] {} {}us parent={} tags={} name={} error={}", context.getContextualName(),
+            elapsedMicros, parent == null ? null : parent.getContextView().getContextualName(),
+            context.getLowCardinalityKeyValues(), context.getHighCardinalityKeyValue("name"),
+            context.getError() == null ? null : context.getError().getClass().getSimpleName());
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return TracingTransactionManager.OBSERVATION_NAME.equals(context.getName());
+    }
+}
@@ -0,0 +1,33 @@
+package hello.springtx.tx;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+/**
+ * 트랜잭션 AOP(TransactionInterceptor)가 예외 발생 시 커밋/롤백 판단 결과를 캐시하도록 한다.
+ * 포인트컷 판단(프록시 적용 여부)은 기존 TransactionAttributeSource 를 그대로 사용한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "springtx.tx", name = "rollback-rule-cache", havingValue = "true", matchIfMissing = true)
+public class RollbackRuleCacheConfig {
+
+    @Bean
+    static BeanPostProcessor rollbackRuleCachePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof TransactionInterceptor interceptor) {
+                    TransactionAttributeSource source = interceptor.getTransactionAttributeSource();
+                    if (source != null && !(source instanceof CachingRollbackRuleAttributeSource)) {
+                        interceptor.setTransactionAttributeSource(new CachingRollbackRuleAttributeSource(source));
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+}
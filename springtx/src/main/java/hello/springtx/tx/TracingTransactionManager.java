@@ -0,0 +1,250 @@
+package hello.springtx.tx;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 트랜잭션 매니저를 감싸서 논리 트랜잭션마다 Observation(span)을 남긴다.
+ *
+ * kind=physical : 신규 트랜잭션(isNewTransaction=true), 실제 커넥션으로 커밋/롤백하는 단위
+ * kind=logical  : 기존 트랜잭션에 참여한 논리 트랜잭션. 바깥 span 의 자식으로 기록된다.
+ * kind=none     : 트랜잭션 없이 실행 (바깥 트랜잭션 없는 SUPPORTS, NOT_SUPPORTED, NEVER)
+ *
+ * outcome
+ * commit              : 커밋
+ * rollback            : 롤백
+ * rollback-only       : 참여 중인 논리 트랜잭션의 롤백 -> 물리 트랜잭션에 rollback-only 마크만 남긴다.
+ * unexpected-rollback : 커밋을 요청했지만 rollback-only 마크 때문에 롤백 (UnexpectedRollbackException)
+ *
+ * span 마다 scope 를 열고, 완료될 때 그 span 의 scope 를 닫는다.
+ * 시작 순서와 다르게 완료되면 위에 열린 scope 를 닫았다가 다시 연다. (ThreadLocal 에 끝난 scope 가 남지 않는다)
+ * 다른 스레드에서 완료된 span 의 scope 는 연 스레드가 다음에 이 트랜잭션 매니저를 호출할 때 닫는다.
+ */
+public class TracingTransactionManager implements PlatformTransactionManager {
+
+    public static final String OBSERVATION_NAME = "springtx.transaction";
+    // 트랜잭션 시작(커넥션 획득 등)이 끝난 시점을 span 이벤트로 남긴다.
+    public static final String BEGIN_EVENT = "begin";
+
+    private final PlatformTransactionManager delegate;
+    private final Supplier<ObservationRegistry> registry;
+    private final Map<TransactionStatus, Span> active = new ConcurrentHashMap<>();
+    // 이 스레드에서 scope 를 연 span (시작 순서)
+    private final ThreadLocal<Deque<Span>> opened = new ThreadLocal<>();
+
+    public TracingTransactionManager(PlatformTransactionManager delegate, Supplier<ObservationRegistry> registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    public PlatformTransactionManager getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * txManager 의 모든 인터페이스(ResourceTransactionManager 등)를 구현하는 프록시를 만든다.
+     * getTransaction, commit, rollback 만 TracingTransactionManager 를 거친다.
+     * AbstractPlatformTransactionManager 의 세 메서드는 final 이라 클래스 프록시로 가로챌 수 없다.
+     * -> JpaTransactionManager 같은 구체 클래스 타입으로는 주입할 수 없다.
+     */
+    public static Object proxy(PlatformTransactionManager txManager, Supplier<ObservationRegistry> registry) {
+        TracingTransactionManager tracing = new TracingTransactionManager(txManager, registry);
+        ProxyFactory factory = new ProxyFactory(txManager);
+        factory.setInterfaces(proxyInterfaces(txManager.getClass()));
+        factory.addAdvice((MethodInterceptor) invocation ->
+            invocation.getMethod().getDeclaringClass() == PlatformTransactionManager.class
+                ? AopUtils.invokeJoinpointUsingReflection(tracing, invocation.getMethod(), invocation.getArguments())
+                : invocation.proceed());
+        return factory.getProxy(ClassUtils.getDefaultClassLoader());
+    }
+
+    // proxy 가 구현하는 인터페이스. native image 프록시 힌트도 같은 순서로 등록한다. (SpringtxRuntimeHints)
+    public static Class<?>[] proxyInterfaces(Class<?> txManagerClass) {
+        Class<?>[] interfaces = ClassUtils.getAllInterfacesForClass(txManagerClass);
+        Class<?>[] withTraced = Arrays.copyOf(interfaces, interfaces.length + 1);
+        withTraced[interfaces.length] = Traced.class;
+        return withTraced;
+    }
+
+    // proxy 로 감싼 트랜잭션 매니저 (다시 감싸지 않는다)
+    public interface Traced {
+    }
+
+    @Override
+    public TransactionStatus getTransaction(@Nullable TransactionDefinition definition) throws TransactionException {
+        TransactionDefinition def = definition != null ? definition : TransactionDefinition.withDefaults();
+        closeEndedScopes();
+        ObservationRegistry observationRegistry = registry.get();
+        Observation observation = Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+            .parentObservation(observationRegistry.getCurrentObservation())
+            .lowCardinalityKeyValue("propagation", propagation(def.getPropagationBehavior()))
+            .lowCardinalityKeyValue("readOnly", String.valueOf(def.isReadOnly()))
+            .highCardinalityKeyValue("name", String.valueOf(def.getName()))
+            .start();
+
+        TransactionStatus status;
+        try {
+            status = delegate.getTransaction(definition);
+        } catch (RuntimeException e) {
+            observation.lowCardinalityKeyValue("kind", "unknown")
+                .lowCardinalityKeyValue("newTransaction", "unknown");
+            end(new Span(observation), "begin-failure", false, e);
+            throw e;
+        }
+
+        boolean newTransaction = status.isNewTransaction();
+        String kind = newTransaction ? "physical" : status.hasTransaction() ? "logical" : "none";
+        observation.contextualName(switch (kind) {
+                case "physical" -> "physical transaction";
+                case "logical" -> "logical transaction";
+                default -> "no transaction";
+            })
+            .lowCardinalityKeyValue("kind", kind)
+            .lowCardinalityKeyValue("newTransaction", String.valueOf(newTransaction))
+            .event(Observation.Event.of(BEGIN_EVENT));
+        // 이후 시작되는 트랜잭션이 이 span 을 부모로 사용하도록 scope 를 연다. (완료 시 닫는다)
+        Span span = new Span(observation);
+        span.scope = observation.openScope();
+        Deque<Span> spans = opened.get();
+        if (spans == null) {
+            spans = new ArrayDeque<>();
+            opened.set(spans);
+        }
+        spans.addLast(span);
+        active.put(status, span);
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        Span span = active.remove(status);
+        closeEndedScopes();
+        boolean rollbackOnly = status.isRollbackOnly();
+        try {
+            delegate.commit(status);
+            end(span, rollbackOnly ? rollbackOutcome(status) : "commit", rollbackOnly, null);
+        } catch (UnexpectedRollbackException e) {
+            end(span, "unexpected-rollback", true, e);
+            throw e;
+        } catch (RuntimeException e) {
+            end(span, "commit-failure", rollbackOnly, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        Span span = active.remove(status);
+        closeEndedScopes();
+        try {
+            delegate.rollback(status);
+            end(span, rollbackOutcome(status), true, null);
+        } catch (RuntimeException e) {
+            end(span, "rollback-failure", true, e);
+            throw e;
+        }
+    }
+
+    private String rollbackOutcome(TransactionStatus status) {
+        return status.isNewTransaction() ? "rollback" : "rollback-only";
+    }
+
+    private void end(@Nullable Span span, String outcome, boolean rollbackOnly, @Nullable Throwable error) {
+        if (span == null) {
+            return;
+        }
+        Observation observation = span.observation;
+        observation.lowCardinalityKeyValue("outcome", outcome)
+            .lowCardinalityKeyValue("rollbackOnly", String.valueOf(rollbackOnly));
+        if (error != null) {
+            observation.error(error);
+        }
+        if (span.owner == Thread.currentThread()) {
+            closeScope(span);
+        } else {
+            span.ended = true; // 다른 스레드의 ThreadLocal 은 건드리지 않는다. -> 연 스레드가 닫는다.
+        }
+        observation.stop();
+    }
+
+    // span 의 scope 를 닫는다. 위에 열린 scope 는 먼저 닫고, 아직 끝나지 않은 span 은 다시 연다.
+    private void closeScope(Span span) {
+        Deque<Span> spans = opened.get();
+        if (spans == null || span.scope == null || !spans.contains(span)) {
+            return;
+        }
+        List<Span> above = new ArrayList<>();
+        while (spans.peekLast() != span) {
+            Span top = spans.pollLast();
+            top.scope.close();
+            above.add(top);
+        }
+        spans.pollLast().scope.close();
+        for (int i = above.size() - 1; i >= 0; i--) {
+            Span reopen = above.get(i);
+            if (!reopen.ended) {
+                reopen.scope = reopen.observation.openScope();
+                spans.addLast(reopen);
+            }
+        }
+        if (spans.isEmpty()) {
+            opened.remove();
+        }
+    }
+
+    // 다른 스레드에서 완료된 span 의 scope 를 닫는다.
+    private void closeEndedScopes() {
+        Deque<Span> spans = opened.get();
+        if (spans == null) {
+            return;
+        }
+        for (Span span : List.copyOf(spans)) {
+            if (span.ended) {
+                closeScope(span);
+            }
+        }
+    }
+
+    private static final class Span {
+        private final Observation observation;
+        private final Thread owner = Thread.currentThread();
+        @Nullable
+        private Observation.Scope scope; // owner 스레드에서만 바꾼다.
+        private volatile boolean ended;
+
+        private Span(Observation observation) {
+            this.observation = observation;
+        }
+    }
+
+    private static String propagation(int behavior) {
+        return switch (behavior) {
+            case TransactionDefinition.PROPAGATION_REQUIRED -> "REQUIRED";
+            case TransactionDefinition.PROPAGATION_SUPPORTS -> "SUPPORTS";
+            case TransactionDefinition.PROPAGATION_MANDATORY -> "MANDATORY";
+            case TransactionDefinition.PROPAGATION_REQUIRES_NEW -> "REQUIRES_NEW";
+            case TransactionDefinition.PROPAGATION_NOT_SUPPORTED -> "NOT_SUPPORTED";
+            case TransactionDefinition.PROPAGATION_NEVER -> "NEVER";
+            case TransactionDefinition.PROPAGATION_NESTED -> "NESTED";
+            default -> String.valueOf(behavior);
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package hello.springtx.tx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// 트랜잭션 시작 (물리 트랜잭션은 커넥션 획득, 기존 트랜잭션 보류 시간 포함)
+@Name("hello.springtx.TransactionBegin")
+@Label("Transaction Begin")
+@Category({"springtx", "Transaction"})
+@Description("Time spent in getTransaction, including connection acquisition and suspension")
+@StackTrace(false)
+public class TransactionBeginJfrEvent extends Event {
+
+    @Label("Name")
+    String name;
+
+    @Label("Kind")
+    String kind;
+
+    @Label("Propagation")
+    String propagation;
+}
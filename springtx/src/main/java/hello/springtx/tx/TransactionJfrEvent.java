@@ -0,0 +1,32 @@
+package hello.springtx.tx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// 논리 트랜잭션 하나 (getTransaction ~ commit/rollback)
+@Name("hello.springtx.Transaction")
+@Label("Transaction")
+@Category({"springtx", "Transaction"})
+@Description("Logical transaction from getTransaction to commit/rollback")
+@StackTrace(false)
+public class TransactionJfrEvent extends Event {
+
+    @Label("Name")
+    String name;
+
+    @Label("Kind")
+    String kind;
+
+    @Label("Propagation")
+    String propagation;
+
+    @Label("Read Only")
+    boolean readOnly;
+
+    @Label("Outcome")
+    String outcome;
+}
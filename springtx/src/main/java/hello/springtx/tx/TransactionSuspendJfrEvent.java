@@ -0,0 +1,23 @@
+package hello.springtx.tx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// REQUIRES_NEW, NOT_SUPPORTED 로 보류된 물리 트랜잭션 (보류 ~ 재개)
+@Name("hello.springtx.TransactionSuspend")
+@Label("Transaction Suspend")
+@Category({"springtx", "Transaction"})
+@Description("Physical transaction suspended while an inner transaction runs")
+@StackTrace(false)
+public class TransactionSuspendJfrEvent extends Event {
+
+    @Label("Name")
+    String name;
+
+    @Label("Outcome")
+    String outcome;
+}
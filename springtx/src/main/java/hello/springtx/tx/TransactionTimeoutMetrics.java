@@ -0,0 +1,74 @@
+package hello.springtx.tx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.ref.WeakReference;
+import java.sql.SQLTimeoutException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionTimedOutException;
+
+/**
+ * 트랜잭션 타임아웃으로 실패한 @Transactional 메서드를 집계한다. (springtx.transaction.timeouts)
+ *
+ * 타임아웃은 두 가지 방식으로 드러난다.
+ * 1. 마감 시각 이후에 쿼리를 만들려고 하면 스프링이 TransactionTimedOutException 을 던진다.
+ * 2. 실행 중인 쿼리는 남은 시간이 JDBC statement timeout 으로 걸려 있어서 드라이버가 취소한다. (QueryTimeoutException)
+ * 예외 타입으로만 판단한다. 공유 EntityManager 로 쿼리를 만들 때 스프링이 마감 시각을 먼저 확인하므로
+ * hibernate 의 "transaction timeout expired" 보다 TransactionTimedOutException 이 먼저 발생한다.
+ *
+ * 트랜잭션 AOP 보다 바깥에서 실행되어 예외 하나를 호출 스택의 여러 메서드에서 중복으로 세지 않는다.
+ * 마지막으로 센 예외는 약한 참조로만 기억한다. (풀 스레드에 예외와 스택이 남지 않는다)
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class TransactionTimeoutMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final ThreadLocal<WeakReference<Throwable>> lastRecorded = new ThreadLocal<>();
+
+    @AfterThrowing(pointcut = "@within(org.springframework.transaction.annotation.Transactional)"
+        + " || @annotation(org.springframework.transaction.annotation.Transactional)", throwing = "ex")
+    public void afterThrowing(JoinPoint joinPoint, Throwable ex) {
+        if (!isTimeout(ex)) {
+            return;
+        }
+        WeakReference<Throwable> last = lastRecorded.get();
+        if (last != null && last.get() == ex) {
+            return;
+        }
+        lastRecorded.set(new WeakReference<>(ex));
+        String method = joinPoint.getSignature().toShortString();
+        log.warn("트랜잭션 타임아웃 method={} ex={}", method, ex.toString());
+        Counter.builder("springtx.transaction.timeouts")
+            .tag("method", method)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    public static boolean isTimeout(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransactionTimedOutException
+                || cause instanceof QueryTimeoutException
+                || cause instanceof jakarta.persistence.QueryTimeoutException
+                || cause instanceof org.hibernate.QueryTimeoutException
+                || cause instanceof SQLTimeoutException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,41 @@
+package hello.springtx.tx;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.function.SingletonSupplier;
+
+/**
+ * 모든 PlatformTransactionManager 빈을 TracingTransactionManager 프록시로 감싼다.
+ * 트랜잭션 AOP, TransactionTemplate, 직접 txManager 를 사용하는 코드 모두 span 이 남는다.
+ * 프록시는 원래 빈의 인터페이스(ResourceTransactionManager 등)를 모두 구현한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "springtx.tx.tracing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionTracingConfig {
+
+    @Bean
+    static BeanPostProcessor transactionTracingPostProcessor(ObjectProvider<ObservationRegistry> registry) {
+        SingletonSupplier<ObservationRegistry> registrySupplier =
+            SingletonSupplier.of(() -> registry.getIfAvailable(() -> ObservationRegistry.NOOP));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof PlatformTransactionManager txManager
+                    && !(bean instanceof TracingTransactionManager.Traced)) {
+                    return TracingTransactionManager.proxy(txManager, registrySupplier);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public LoggingTransactionObservationHandler loggingTransactionObservationHandler() {
+        return new LoggingTransactionObservationHandler();
+    }
+}
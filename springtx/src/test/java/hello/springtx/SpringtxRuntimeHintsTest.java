@@ -0,0 +1,43 @@
+package hello.springtx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderSummary;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberView;
+import hello.springtx.tx.TracingTransactionManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.data.projection.TargetAware;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class SpringtxRuntimeHintsTest {
+
+    @Test
+    void registerHints() {
+        RuntimeHints hints = new RuntimeHints();
+        new SpringtxRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        for (Class<?> entity : new Class<?>[]{Order.class, Member.class}) {
+            assertThat(RuntimeHintsPredicates.reflection().onType(entity)
+                .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS))
+                .accepts(hints);
+        }
+        assertThat(RuntimeHintsPredicates.reflection().onType(MemberView.class)
+            .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.proxies()
+            .forInterfaces(AopProxyUtils.completeJdkProxyInterfaces(OrderSummary.class, TargetAware.class)))
+            .accepts(hints);
+
+        // 실행 중에 만드는 트랜잭션 매니저 프록시
+        Object proxy = TracingTransactionManager.proxy(new JpaTransactionManager(), () -> null);
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(proxy.getClass().getInterfaces())).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(PlatformTransactionManager.class)
+            .withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS)).accepts(hints);
+    }
+}
@@ -0,0 +1,204 @@
+package hello.springtx.bulkhead;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Slf4j
+@SpringBootTest(properties = {
+    "springtx.bulkhead.instances.bulkheadTest.initial-limit=1",
+    "springtx.bulkhead.instances.bulkheadTest.min-limit=1",
+    "springtx.bulkhead.instances.bulkheadTest.max-wait=50ms",
+    // 풀 6, 회원 가입 = 커넥션 2개, 2개를 남긴다. -> 회원 최대 한도 (6 - 2) / 2 = 2
+    "spring.datasource.hikari.maximum-pool-size=6",
+    "spring.datasource.hikari.connection-timeout=1000",
+    "springtx.bulkhead.instances.member.connections-per-call=2",
+    "springtx.bulkhead.instances.member.reserved-connections=2",
+    "springtx.bulkhead.instances.member.max-wait=50ms"
+})
+class BulkheadTest {
+
+    @Autowired
+    SlowService slowService;
+    @Autowired
+    BulkheadAspect bulkheadAspect;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    SlowJoinService slowJoinService;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Test
+    void rejectWhenFull() throws Exception {
+        // given : 한도 1 을 다른 스레드가 사용 중
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> slowService.hold(entered, release));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // when : 최대 50ms 기다린 후 거절 (트랜잭션을 시작하지 않는다)
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> slowService.hold(new CountDownLatch(1), new CountDownLatch(0)))
+            .isInstanceOf(BulkheadFullException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(meterRegistry.get("springtx.bulkhead.rejected").tag("name", "bulkheadTest").counter().count())
+            .isEqualTo(1);
+
+        // then : 자리가 나면 다시 실행된다.
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        CountDownLatch entered2 = new CountDownLatch(1);
+        slowService.hold(entered2, new CountDownLatch(0));
+        assertThat(entered2.getCount()).isZero();
+        assertThat(bulkheadAspect.getLimiter("bulkheadTest").getInFlight()).isZero();
+    }
+
+    @Test
+    void aimd() throws InterruptedException {
+        BulkheadProperties.Limit properties = new BulkheadProperties.Limit();
+        properties.setInitialLimit(4);
+        properties.setMinLimit(1);
+        properties.setMaxLimit(5);
+        properties.setBackoffRatio(0.5);
+        AimdLimiter limiter = new AimdLimiter(properties);
+
+        // 한도의 절반 이상 사용 중 성공 -> +1 (최대 5)
+        for (int i = 0; i < 2; i++) {
+            assertThat(limiter.tryAcquire(Duration.ZERO)).isTrue();
+        }
+        limiter.release(0, false);
+        limiter.release(0, false);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+
+        // 과부하 -> × 0.5
+        assertThat(limiter.tryAcquire(Duration.ZERO)).isTrue();
+        limiter.release(0, true);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        // 한도가 차면 기다리지 않고 거절
+        assertThat(limiter.tryAcquire(Duration.ZERO)).isTrue();
+        assertThat(limiter.tryAcquire(Duration.ZERO)).isTrue();
+        assertThat(limiter.tryAcquire(Duration.ZERO)).isFalse();
+    }
+
+    @Test
+    void saturatedJoinsLeaveConnectionForOrder() throws Exception {
+        // given : 커넥션 2개를 잡는 회원 가입을 한도(2)보다 많이 동시에 실행
+        int joins = 5;
+        int limit = bulkheadAspect.getLimiter("member").getLimit();
+        assertThat(limit).isEqualTo(2);
+        CountDownLatch entered = new CountDownLatch(limit);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(joins);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < joins; i++) {
+            futures.add(executor.submit(() -> slowJoinService.join(entered, release)));
+        }
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // when : 회원 가입이 커넥션 4개를 잡고 있는 동안 주문
+        Order order = new Order();
+        order.setUsername("bulkhead_order");
+        try {
+            orderService.order(order);
+        } finally {
+            release.countDown();
+        }
+
+        // then : 주문은 커넥션을 얻어 커밋, 한도를 넘은 회원 가입은 커넥션을 잡기 전에 거절
+        assertThat(orderRepository.findById(order.getId()).get().getPayStatus()).isEqualTo("완료");
+        int rejected = 0;
+        for (Future<?> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(BulkheadFullException.class);
+                rejected++;
+            }
+        }
+        executor.shutdown();
+        assertThat(rejected).isEqualTo(joins - limit);
+    }
+
+    @TestConfiguration
+    static class BulkheadTestConfig {
+
+        @Bean
+        SlowService slowService() {
+            return new SlowService();
+        }
+
+        @Bean
+        SlowJoinService slowJoinService(PlatformTransactionManager txManager) {
+            return new SlowJoinService(txManager);
+        }
+    }
+
+    // MemberService.joinV1 처럼 외부 트랜잭션 + REQUIRES_NEW 로 커넥션 2개를 동시에 잡는다.
+    static class SlowJoinService {
+
+        private final TransactionTemplate requiresNew;
+
+        SlowJoinService(PlatformTransactionManager txManager) {
+            this.requiresNew = new TransactionTemplate(txManager);
+            this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+
+        @Bulkhead("member")
+        @Transactional
+        public void join(CountDownLatch entered, CountDownLatch release) {
+            requiresNew.executeWithoutResult(status -> {
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+    }
+
+    @Slf4j
+    static class SlowService {
+
+        @Bulkhead("bulkheadTest")
+        @Transactional
+        public void hold(CountDownLatch entered, CountDownLatch release) {
+            assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package hello.springtx.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import hello.springtx.propagation.JoinResult;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import hello.springtx.shard.ShardProperties;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+@SpringBootTest(properties = {
+    "springtx.member.write-behind.enabled=true",
+    "springtx.member.write-behind.flush-interval=1h",
+    "springtx.member.write-behind.durability=journal",
+    "springtx.member.write-behind.journal-path=build/test-journal/member-write-behind.journal",
+    "springtx.member.write-behind.max-cached=100"
+})
+class MemberWriteBehindCacheTest {
+
+    @Autowired
+    MemberWriteBehindCache cache;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    WriteBehindProperties properties;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    PlatformTransactionManager txManager;
+    @Autowired
+    ShardProperties shardProperties;
+
+    @Test
+    void coalesceAndFlush() {
+        // given : 같은 username 저장 2번 -> 대기 목록에는 1건
+        String username = "writeBehind_coalesce";
+        cache.save(new Member(username));
+        cache.save(new Member(username));
+
+        // 아직 DB 에는 없지만 캐시에서 조회된다.
+        assertThat(cache.find(username)).isPresent();
+        assertThat(memberRepository.find(username)).isEmpty();
+
+        // when
+        cache.flush();
+
+        // then
+        assertThat(cache.pendingCount()).isZero();
+        assertThat(memberRepository.findExistingUsernames(List.of(username))).containsExactly(username);
+        assertThat(Files.exists(properties.getJournalPath().resolveSibling("member-write-behind.journal.flushing")))
+            .isFalse();
+    }
+
+    @Test
+    void recoverFromJournal() throws Exception {
+        // given : 장애 직전 저널에만 남아있던 쓰기
+        String username = "writeBehind_recover";
+        Path journalPath = properties.getJournalPath();
+        Files.createDirectories(journalPath.toAbsolutePath().getParent());
+        Files.write(journalPath, List.of(username), StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        // when
+        cache.recover();
+        cache.flush();
+
+        // then
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+
+    @Test
+    void joinThroughCache() {
+        // given
+        String username = "writeBehind_join";
+
+        // when : 가입 트랜잭션 커밋 이후 캐시에 들어간다. DB 반영은 flush 때
+        memberService.joinV1(username);
+
+        // then
+        assertThat(memberService.findMember(username)).isPresent();
+        assertThat(memberRepository.find(username)).isEmpty();
+        cache.flush();
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+
+    @Test
+    void rolledBackJoinNotCached() {
+        // given : 로그 저장 실패 -> 가입 트랜잭션 롤백
+        String username = "로그예외_writeBehind_rollback";
+
+        // when
+        assertThatThrownBy(() -> memberService.joinV1(username))
+            .isInstanceOf(RuntimeException.class);
+
+        // then : 캐시에도, flush 이후 DB 에도 없다.
+        assertThat(memberService.findMember(username)).isEmpty();
+        cache.flush();
+        assertThat(memberRepository.find(username)).isEmpty();
+    }
+
+    @Test
+    void joinAllThroughCache() {
+        // given : 캐시에만 있는 회원
+        cache.save(new Member("writeBehind_all_1"));
+
+        // when
+        JoinResult result = memberService.joinAll(List.of("writeBehind_all_1", "writeBehind_all_2"));
+
+        // then : 캐시의 회원을 중복으로 판단한다.
+        assertThat(result.getDuplicates()).containsExactly("writeBehind_all_1");
+        cache.flush();
+        assertThat(memberRepository.findExistingUsernames(List.of("writeBehind_all_1", "writeBehind_all_2")))
+            .containsExactlyInAnyOrder("writeBehind_all_1", "writeBehind_all_2");
+    }
+
+    @Test
+    void failingMemberDeadLettered() throws Exception {
+        // given : username 컬럼(255) 보다 긴 회원 -> 데이터 오류
+        String ok = "writeBehind_ok";
+        String bad = "writeBehind_bad_" + "x".repeat(300);
+        long droppedBefore = cache.getDroppedCount();
+        cache.save(new Member(ok));
+        cache.save(new Member(bad));
+
+        // when : batch 실패 -> 건별 저장 -> 정상 회원은 저장, 실패한 회원은 dead letter
+        cache.flush();
+
+        // then
+        assertThat(memberRepository.find(ok)).isPresent();
+        assertThat(cache.getDroppedCount()).isEqualTo(droppedBefore + 1);
+        assertThat(cache.pendingCount()).isZero();
+        assertThat(cache.find(bad)).isEmpty();
+        assertThat(Files.readAllLines(properties.getJournalPath().resolveSibling("member-write-behind.journal.dead")))
+            .contains(bad);
+    }
+
+    @Test
+    void outageKeepsPending() {
+        // given : DB 장애 (트랜잭션을 시작할 수 없음)
+        WriteBehindProperties outageProperties = new WriteBehindProperties();
+        outageProperties.setJournalPath(Path.of("build", "test-journal", "outage.journal"));
+        outageProperties.setRetryBackoff(Duration.ZERO);
+        OutageTransactionManager outageTxManager = new OutageTransactionManager(txManager);
+        MemberWriteBehindCache outageCache = new MemberWriteBehindCache(memberRepository, outageTxManager,
+            outageProperties, shardProperties);
+        outageCache.save(new Member("writeBehind_outage_1"));
+        outageCache.save(new Member("writeBehind_outage_2"));
+
+        // when : 장애 동안 여러 번 flush
+        for (int i = 0; i < 5; i++) {
+            outageCache.flush();
+        }
+
+        // then : 버리지 않고, 건별로 다시 시도하지 않는다. (flush 마다 트랜잭션 한 번)
+        assertThat(outageCache.getDroppedCount()).isZero();
+        assertThat(outageCache.pendingCount()).isEqualTo(2);
+        assertThat(outageTxManager.begins).isEqualTo(5);
+
+        // 복구 이후 저장
+        outageTxManager.down = false;
+        outageCache.flush();
+        assertThat(memberRepository.findExistingUsernames(List.of("writeBehind_outage_1", "writeBehind_outage_2")))
+            .hasSize(2);
+    }
+
+    @Test
+    void leftoverFlushingJournalRecovered() throws Exception {
+        // given : 이전 flush 가 중간에 끝나서 남은 .flushing 저널
+        String leftover = "writeBehind_leftover";
+        Path flushing = properties.getJournalPath().resolveSibling("member-write-behind.journal.flushing");
+        Files.createDirectories(flushing.toAbsolutePath().getParent());
+        Files.write(flushing, List.of(leftover), StandardCharsets.UTF_8);
+        cache.save(new Member("writeBehind_after_leftover"));
+
+        // when
+        cache.flush();
+
+        // then : 덮어쓰지 않고 함께 저장한다.
+        assertThat(memberRepository.findExistingUsernames(List.of(leftover, "writeBehind_after_leftover")))
+            .hasSize(2);
+        assertThat(Files.exists(flushing)).isFalse();
+    }
+
+    @Test
+    void boundedCache() {
+        for (int i = 0; i < 300; i++) {
+            cache.save(new Member("writeBehind_bound_" + i));
+        }
+        cache.flush();
+        for (int i = 0; i < 300; i++) {
+            cache.find("writeBehind_bound_" + i);
+        }
+        assertThat(cache.cachedCount()).isLessThanOrEqualTo(100);
+    }
+
+    static class OutageTransactionManager implements PlatformTransactionManager {
+
+        private final PlatformTransactionManager delegate;
+        volatile boolean down = true;
+        int begins;
+
+        OutageTransactionManager(PlatformTransactionManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            begins++;
+            if (down) {
+                throw new CannotCreateTransactionException("DB 연결 실패");
+            }
+            return delegate.getTransaction(definition);
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            delegate.commit(status);
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            delegate.rollback(status);
+        }
+    }
+}
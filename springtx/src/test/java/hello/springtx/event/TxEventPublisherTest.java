@@ -0,0 +1,184 @@
+package hello.springtx.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderEvent;
+import hello.springtx.order.OrderService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.ResolvableType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Slf4j
+@SpringBootTest
+class TxEventPublisherTest {
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    TxEventPublisher eventPublisher;
+    @Autowired
+    PlatformTransactionManager txManager;
+    @Autowired
+    OrderEventCollector collector;
+
+    @BeforeEach
+    void clear() {
+        collector.batches.clear();
+    }
+
+    @Test
+    void commit_dispatchAfterCommit() throws Exception {
+        // given
+        Order order = new Order();
+        order.setUsername("정상");
+
+        // when
+        orderService.order(order);
+
+        // then
+        List<OrderEvent> batch = collector.batches.poll(5, TimeUnit.SECONDS);
+        assertThat(batch).hasSize(1);
+        assertThat(batch.get(0).getPayStatus()).isEqualTo("완료");
+    }
+
+    @Test
+    void bizException_commit_dispatch() throws Exception {
+        Order order = new Order();
+        order.setUsername("잔고부족");
+
+        assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+
+        // 체크 예외 -> 커밋 -> 이벤트 전달
+        List<OrderEvent> batch = collector.batches.poll(5, TimeUnit.SECONDS);
+        assertThat(batch).extracting(OrderEvent::getPayStatus).containsExactly("대기");
+    }
+
+    @Test
+    void rollback_discard() throws Exception {
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            eventPublisher.publish(new OrderEvent(1L, "rollback", "완료"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(collector.batches.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void sameTypeEvents_batched() throws Exception {
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            eventPublisher.publish(new OrderEvent(1L, "batch", "완료"));
+            eventPublisher.publish(new OrderEvent(2L, "batch", "완료"));
+            eventPublisher.publish(new OrderEvent(3L, "batch", "대기"));
+        });
+
+        List<OrderEvent> batch = collector.batches.poll(5, TimeUnit.SECONDS);
+        assertThat(batch).extracting(OrderEvent::getOrderId).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void queueFull_callerRuns() throws Exception {
+        // given : 스레드 1개, 대기열 1개인 executor 를 처리 중 + 대기 1건으로 채운다.
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingListener listener = new BlockingListener(release);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("listener", listener));
+        TxEventPublisher publisher = new TxEventPublisher(
+            beanFactory.getBeanProvider(ResolvableType.forClass(TxEventListener.class)), executor);
+        try {
+            publisher.publish(new OrderEvent(1L, "full", "완료"));
+            assertThat(listener.started.await(5, TimeUnit.SECONDS)).isTrue();
+            publisher.publish(new OrderEvent(2L, "full", "완료"));
+
+            // when : 커밋 이후 전달 -> 대기열 가득 참
+            new TransactionTemplate(txManager).executeWithoutResult(status ->
+                publisher.publish(new OrderEvent(3L, "full", "완료")));
+
+            // then : 버리지 않고 커밋한 스레드에서 바로 전달한다.
+            assertThat(publisher.getCallerRunsCount()).isEqualTo(1);
+            assertThat(listener.threads.get(3L)).isEqualTo(Thread.currentThread().getName());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertThat(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(listener.threads).containsOnlyKeys(1L, 2L, 3L);
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        OrderEventCollector orderEventCollector() {
+            return new OrderEventCollector();
+        }
+    }
+
+    static class OrderEventCollector implements TxEventListener<OrderEvent> {
+
+        final BlockingQueue<List<OrderEvent>> batches = new LinkedBlockingQueue<>();
+
+        @Override
+        public Class<OrderEvent> eventType() {
+            return OrderEvent.class;
+        }
+
+        @Override
+        public void onEvents(List<OrderEvent> events) {
+            log.info("onEvents thread={} events={}", Thread.currentThread().getName(), events);
+            batches.add(events);
+        }
+    }
+
+    // 첫 이벤트 처리에서 release 까지 기다린다. 이벤트(orderId)별로 처리한 스레드를 기록한다.
+    static class BlockingListener implements TxEventListener<OrderEvent> {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final Map<Long, String> threads = new ConcurrentHashMap<>();
+        private final CountDownLatch release;
+
+        BlockingListener(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public Class<OrderEvent> eventType() {
+            return OrderEvent.class;
+        }
+
+        @Override
+        public void onEvents(List<OrderEvent> events) {
+            events.forEach(event -> threads.put(event.getOrderId(), Thread.currentThread().getName()));
+            if (started.getCount() > 0) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
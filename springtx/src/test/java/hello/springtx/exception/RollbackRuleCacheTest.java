@@ -0,0 +1,62 @@
+package hello.springtx.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.tx.CachingRollbackRuleAttribute;
+import hello.springtx.tx.CachingRollbackRuleAttributeSource;
+import java.lang.reflect.Method;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.interceptor.NoRollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+@SpringBootTest
+class RollbackRuleCacheTest {
+
+    @Autowired
+    TransactionInterceptor transactionInterceptor;
+
+    @Test
+    void interceptorUsesCachingSource() throws NoSuchMethodException {
+        assertThat(transactionInterceptor.getTransactionAttributeSource())
+            .isInstanceOf(CachingRollbackRuleAttributeSource.class);
+
+        Method order = OrderService.class.getMethod("order", Order.class);
+        TransactionAttribute attribute = transactionInterceptor.getTransactionAttributeSource()
+            .getTransactionAttribute(order, OrderService.class);
+
+        // 기본 규칙 : 체크 예외 -> 커밋, 런타임 예외 -> 롤백
+        assertThat(attribute).isInstanceOf(CachingRollbackRuleAttribute.class);
+        assertThat(attribute.rollbackOn(new NotEnoughMoneyException("잔고부족"))).isFalse();
+        assertThat(attribute.rollbackOn(new RuntimeException())).isTrue();
+    }
+
+    @Test
+    void sameDecisionAsRules() {
+        // rollbackFor = IllegalStateException, noRollbackFor = RuntimeException
+        RuleBasedTransactionAttribute rules = new RuleBasedTransactionAttribute();
+        rules.getRollbackRules().add(new RollbackRuleAttribute(IllegalStateException.class));
+        rules.getRollbackRules().add(new NoRollbackRuleAttribute(RuntimeException.class));
+        CachingRollbackRuleAttribute cached = new CachingRollbackRuleAttribute(rules);
+
+        for (int i = 0; i < 2; i++) { // 두 번째는 캐시된 결과
+            assertThat(cached.rollbackOn(new IllegalStateException())).isTrue();
+            assertThat(cached.rollbackOn(new IllegalArgumentException())).isFalse();
+            assertThat(cached.rollbackOn(new NotEnoughMoneyException("잔고부족"))).isFalse();
+            assertThat(cached.rollbackOn(new Error())).isTrue();
+        }
+    }
+
+    @Test
+    void stacklessBusinessException() {
+        assertThat(new NotEnoughMoneyException("잔고부족", false).getStackTrace()).isEmpty();
+        assertThat(new NotEnoughMoneyException("잔고부족").getStackTrace()).isNotEmpty();
+    }
+}
@@ -0,0 +1,150 @@
+package hello.springtx.load;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * 목표 RPS 로 요청을 일정 간격으로 발생시키는 부하 생성기
+ *
+ * 설정 (시스템 프로퍼티, ./gradlew loadTest -Dload.rps=500 ...)
+ * load.concurrency : 요청을 실행하는 스레드 수 (default 8)
+ * load.rps         : 목표 초당 요청 수 (default 200)
+ * load.duration    : 실행 시간(초) (default 10)
+ * load.mix         : 입력 비율 (default 정상=85,예외=5,잔고부족=5,로그예외=5)
+ */
+@Slf4j
+class LoadGenerator {
+
+    private final int concurrency;
+    private final int targetRps;
+    private final Duration duration;
+    private final Map<String, Integer> mix;
+    private final MeterRegistry meterRegistry;
+
+    LoadGenerator(MeterRegistry meterRegistry) {
+        this(Integer.getInteger("load.concurrency", 8),
+            Integer.getInteger("load.rps", 200),
+            Duration.ofSeconds(Long.getLong("load.duration", 10)),
+            parseMix(System.getProperty("load.mix", "정상=85,예외=5,잔고부족=5,로그예외=5")),
+            meterRegistry);
+    }
+
+    LoadGenerator(int concurrency, int targetRps, Duration duration, Map<String, Integer> mix,
+                  MeterRegistry meterRegistry) {
+        this.concurrency = concurrency;
+        this.targetRps = targetRps;
+        this.duration = duration;
+        this.mix = mix;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 입력 종류(정상, 예외, 잔고부족, 로그예외)와 순번을 받아 요청을 실행한다.
+     * 예외 없이 끝나면 commit, RuntimeException 이면 rollback 으로 집계한다.
+     * 체크 예외(잔고부족)는 스프링 기본 설정에 따라 commit 으로 집계한다.
+     */
+    LoadResult run(String name, Operation operation) throws InterruptedException {
+        Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        LongAdder rollbacks = new LongAdder();
+        AtomicLong ticket = new AtomicLong();
+        List<String> kinds = weightedKinds();
+
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").timer();
+        long acquireCountBefore = acquire == null ? 0 : acquire.count();
+        double acquireTotalBefore = acquire == null ? 0 : acquire.totalTime(TimeUnit.MILLISECONDS);
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / targetRps;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                while (true) {
+                    long seq = ticket.getAndIncrement();
+                    long intendedStart = start + seq * intervalNanos;
+                    if (intendedStart >= end) {
+                        return;
+                    }
+                    long wait = intendedStart - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    String kind = kinds.get(ThreadLocalRandom.current().nextInt(kinds.size()));
+                    String outcome = execute(operation, kind, seq, rollbacks);
+                    latency.recordValue(Math.min(System.nanoTime() - intendedStart,
+                        latency.getHighestTrackableValue()));
+                    outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+                }
+            });
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+            log.warn("[{}] 부하 테스트가 제한 시간 안에 끝나지 않았습니다.", name);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long acquireCount = acquire == null ? 0 : acquire.count() - acquireCountBefore;
+        double acquireTotal = acquire == null ? 0 : acquire.totalTime(TimeUnit.MILLISECONDS) - acquireTotalBefore;
+        double acquireMax = acquire == null ? 0 : acquire.max(TimeUnit.MILLISECONDS);
+
+        Map<String, Long> outcomeCounts = new LinkedHashMap<>();
+        outcomes.forEach((key, value) -> outcomeCounts.put(key, value.sum()));
+        return new LoadResult(name, latency.getTotalCount(), elapsed, latency, outcomeCounts,
+            rollbacks.sum(), acquireCount == 0 ? 0 : acquireTotal / acquireCount, acquireMax);
+    }
+
+    private String execute(Operation operation, String kind, long seq, LongAdder rollbacks) {
+        try {
+            operation.execute(kind, seq);
+            return "commit";
+        } catch (RuntimeException e) {
+            rollbacks.increment();
+            return "rollback:" + e.getClass().getSimpleName();
+        } catch (Exception e) {
+            return "commit:" + e.getClass().getSimpleName();
+        }
+    }
+
+    private List<String> weightedKinds() {
+        List<String> kinds = new ArrayList<>();
+        mix.forEach((kind, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                kinds.add(kind);
+            }
+        });
+        return kinds;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] kindAndWeight = entry.trim().split("=");
+            result.put(kindAndWeight[0], Integer.parseInt(kindAndWeight[1]));
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    interface Operation {
+        void execute(String kind, long seq) throws Exception;
+    }
+}
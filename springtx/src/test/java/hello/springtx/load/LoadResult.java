@@ -0,0 +1,38 @@
+package hello.springtx.load;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+
+/**
+ * 부하 테스트 한 번의 결과
+ * latency 는 의도한 시작 시각 기준으로 측정한다. (coordinated omission 보정)
+ */
+record LoadResult(String name, long requests, long elapsedNanos, Histogram latency,
+                  Map<String, Long> outcomes, long rollbacks, double poolAcquireMeanMillis,
+                  double poolAcquireMaxMillis) {
+
+    double throughput() {
+        return requests / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    double rollbackRate() {
+        return requests == 0 ? 0 : (double) rollbacks / requests;
+    }
+
+    String report() {
+        return String.format("""
+                [%s] requests=%d throughput=%.1f/s rollbackRate=%.2f%%
+                  latency(ms) p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f
+                  outcomes=%s
+                  hikari acquire(ms) mean=%.3f max=%.3f""",
+            name, requests, throughput(), rollbackRate() * 100,
+            millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+            millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+            millis(latency.getMaxValue()), outcomes, poolAcquireMeanMillis, poolAcquireMaxMillis);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
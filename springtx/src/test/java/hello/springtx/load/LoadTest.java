@@ -0,0 +1,67 @@
+package hello.springtx.load;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 주문, 회원가입 흐름의 부하 테스트 (일반 test 에서는 제외)
+ * ./gradlew loadTest -Dload.concurrency=16 -Dload.rps=500 -Dload.duration=30
+ *
+ * rps 를 올려가면서 p99 latency 와 hikari acquire 시간이 급격히 늘어나는 지점이 포화 지점이다.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(properties = {
+    "logging.level.org.springframework.transaction.interceptor=INFO",
+    "logging.level.org.springframework.orm.jpa.JpaTransactionManager=INFO",
+    "logging.level.org.hibernate.resource.transaction=INFO",
+    "logging.level.hello.springtx=WARN"
+})
+class LoadTest {
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    LoadGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        generator = new LoadGenerator(meterRegistry);
+    }
+
+    @Test
+    void order() throws InterruptedException {
+        LoadResult result = generator.run("OrderService.order", (kind, seq) -> {
+            Order order = new Order();
+            order.setUsername(kind);
+            orderService.order(order);
+        });
+        log.warn(result.report());
+    }
+
+    @Test
+    void joinV1() throws InterruptedException {
+        LoadResult result = generator.run("MemberService.joinV1",
+            (kind, seq) -> memberService.joinV1(kind + "_joinV1_" + seq));
+        log.warn(result.report());
+    }
+
+    @Test
+    void joinV2() throws InterruptedException {
+        LoadResult result = generator.run("MemberService.joinV2",
+            (kind, seq) -> memberService.joinV2(kind + "_joinV2_" + seq));
+        log.warn(result.report());
+    }
+}
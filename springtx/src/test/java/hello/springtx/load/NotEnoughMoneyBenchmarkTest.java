@@ -0,0 +1,94 @@
+package hello.springtx.load;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderProperties;
+import hello.springtx.order.OrderService;
+import hello.springtx.tx.CachingRollbackRuleAttribute;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.interceptor.RollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+
+/**
+ * 잔고부족(체크 예외 -> 커밋) 경로 벤치마크 (./gradlew loadTest)
+ * 1. 롤백 규칙 평가 : 규칙 평가 vs 캐시
+ * 2. 예외 생성 : 스택 트레이스 O vs X
+ * 3. OrderService.order("잔고부족") 전체 : 스택 트레이스 O vs X
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(properties = {
+    "logging.level.org.springframework.transaction.interceptor=INFO",
+    "logging.level.org.springframework.orm.jpa.JpaTransactionManager=INFO",
+    "logging.level.org.hibernate.resource.transaction=INFO",
+    "logging.level.hello.springtx=WARN"
+})
+class NotEnoughMoneyBenchmarkTest {
+
+    static final int WARMUP = 20_000;
+    static final int ITERATIONS = 200_000;
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderProperties orderProperties;
+
+    @Test
+    void rollbackRuleEvaluation() {
+        RuleBasedTransactionAttribute rules = new RuleBasedTransactionAttribute();
+        rules.getRollbackRules().add(new RollbackRuleAttribute(IllegalStateException.class));
+        CachingRollbackRuleAttribute cached = new CachingRollbackRuleAttribute(rules);
+        NotEnoughMoneyException ex = new NotEnoughMoneyException("잔고가 부족합니다.", false);
+
+        measure("rollbackOn rules", ITERATIONS, i -> rules.rollbackOn(ex));
+        measure("rollbackOn cached", ITERATIONS, i -> cached.rollbackOn(ex));
+    }
+
+    @Test
+    void exceptionCreation() {
+        measure("exception stackTrace=true", ITERATIONS, i -> new NotEnoughMoneyException("잔고가 부족합니다.", true));
+        measure("exception stackTrace=false", ITERATIONS, i -> new NotEnoughMoneyException("잔고가 부족합니다.", false));
+    }
+
+    @Test
+    void orderNotEnoughMoney() {
+        boolean original = orderProperties.isBusinessExceptionStackTrace();
+        try {
+            orderProperties.setBusinessExceptionStackTrace(true);
+            measure("order 잔고부족 stackTrace=true", 2_000, i -> orderNotEnoughMoney());
+            orderProperties.setBusinessExceptionStackTrace(false);
+            measure("order 잔고부족 stackTrace=false", 2_000, i -> orderNotEnoughMoney());
+        } finally {
+            orderProperties.setBusinessExceptionStackTrace(original);
+        }
+    }
+
+    private void orderNotEnoughMoney() {
+        Order order = new Order();
+        order.setUsername("잔고부족");
+        try {
+            orderService.order(order);
+        } catch (NotEnoughMoneyException e) {
+            // 비즈니스 예외 -> 커밋
+        }
+    }
+
+    private void measure(String name, int iterations, IntConsumer body) {
+        for (int i = 0; i < Math.min(WARMUP, iterations); i++) {
+            body.accept(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            body.accept(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        log.warn("[{}] {} ns/op ({} ops, {} ms)", name, elapsed / iterations, iterations,
+            TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+}
@@ -0,0 +1,128 @@
+package hello.springtx.order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Slf4j
+@SpringBootTest(properties = {"springtx.order.ledger-recheck-interval=0ms", "springtx.order.ledger-max-entries=50"})
+class LedgerOrderServiceTest {
+
+    @Autowired
+    LedgerOrderService ledgerOrderService;
+    @Autowired
+    AccountService accountService;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    BalanceLedger ledger;
+
+    @Test
+    void order_debit() throws NotEnoughMoneyException {
+        // given
+        accountService.deposit("ledger_debit", 1000);
+        Order order = order("ledger_debit", 600L);
+
+        // when
+        ledgerOrderService.order(order);
+
+        // then
+        assertThat(orderRepository.findById(order.getId()).get().getPayStatus()).isEqualTo("완료");
+        assertThat(accountRepository.findById("ledger_debit").get().getBalance()).isEqualTo(400);
+        assertThat(ledger.getBalance("ledger_debit")).isEqualTo(400);
+    }
+
+    @Test
+    void notEnoughMoney_rejectedBeforeTransaction() throws NotEnoughMoneyException {
+        // given
+        accountService.deposit("ledger_reject", 500);
+        long rejectedBefore = ledger.getRejectedCount();
+        Order order = order("ledger_reject", 600L);
+
+        // when : 메모리 잔고로 거절 -> 트랜잭션 시작 X, 주문 저장 X
+        assertThatThrownBy(() -> ledgerOrderService.order(order))
+            .isInstanceOf(NotEnoughMoneyException.class);
+
+        // then
+        assertThat(order.getId()).isNull();
+        assertThat(ledger.getRejectedCount()).isEqualTo(rejectedBefore + 1);
+        assertThat(accountRepository.findById("ledger_reject").get().getBalance()).isEqualTo(500);
+    }
+
+    @Test
+    void staleLedger_dbDecides() throws NotEnoughMoneyException {
+        // given : 메모리 잔고를 읽은 뒤 DB 잔고가 다른 경로로 줄었다.
+        accountService.deposit("ledger_stale", 1000);
+        assertThat(ledger.getBalance("ledger_stale")).isEqualTo(1000);
+        Account account = accountRepository.findById("ledger_stale").get();
+        account.setBalance(200); // 다른 인스턴스에서 DB 잔고만 차감된 상황
+        accountRepository.save(account);
+
+        Order order = order("ledger_stale", 600L);
+
+        // when : 메모리 승인은 통과, DB 조건부 차감 실패 -> 대기 주문 커밋 (체크 예외)
+        assertThatThrownBy(() -> ledgerOrderService.order(order))
+            .isInstanceOf(NotEnoughMoneyException.class);
+
+        // then
+        assertThat(orderRepository.findById(order.getId()).get().getPayStatus()).isEqualTo("대기");
+        assertThat(ledger.getBalance("ledger_stale")).isEqualTo(200); // DB 값으로 다시 읽음
+    }
+
+    @Test
+    void remoteCredit_recheckBeforeReject() throws NotEnoughMoneyException {
+        // given : 메모리 잔고를 읽은 뒤 다른 인스턴스에서 입금되었다. (이 인스턴스의 ledger 는 모른다)
+        accountService.deposit("ledger_credit", 500);
+        assertThat(ledger.getBalance("ledger_credit")).isEqualTo(500);
+        Account account = accountRepository.findById("ledger_credit").get();
+        account.setBalance(1000);
+        accountRepository.save(account);
+
+        Order order = order("ledger_credit", 600L);
+
+        // when : 메모리 잔고는 부족 -> DB 에서 다시 읽고 승인
+        ledgerOrderService.order(order);
+
+        // then
+        assertThat(orderRepository.findById(order.getId()).get().getPayStatus()).isEqualTo("완료");
+        assertThat(accountRepository.findById("ledger_credit").get().getBalance()).isEqualTo(400);
+    }
+
+    @Test
+    void releaseAfterEvict_notAddedToReloadedBalance() {
+        // given : 선차감 후 evict -> DB 값으로 다시 읽음
+        accountService.deposit("ledger_release", 1000);
+        BalanceLedger.Reservation reservation = ledger.tryReserve("ledger_release", 600);
+        assertThat(reservation).isNotNull();
+        assertThat(ledger.getBalance("ledger_release")).isEqualTo(400);
+        ledger.evict("ledger_release");
+        assertThat(ledger.getBalance("ledger_release")).isEqualTo(1000);
+
+        // when : 이전 snapshot 의 선차감을 되돌린다.
+        ledger.release(reservation);
+
+        // then : 다시 읽은 잔고는 그대로
+        assertThat(ledger.getBalance("ledger_release")).isEqualTo(1000);
+    }
+
+    @Test
+    void boundedEntries() {
+        for (int i = 0; i < 200; i++) {
+            ledger.getBalance("ledger_bound_" + i);
+        }
+        assertThat(ledger.getCachedCount()).isLessThanOrEqualTo(50);
+    }
+
+    private Order order(String username, Long amount) {
+        Order order = new Order();
+        order.setUsername(username);
+        order.setAmount(amount);
+        return order;
+    }
+}
@@ -0,0 +1,54 @@
+package hello.springtx.order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+    "springtx.order.archive.directory=build/test-order-archive",
+    "springtx.order.archive.batch-size=2"
+})
+class OrderArchiverTest {
+
+    @Autowired
+    OrderArchiver archiver;
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Test
+    void archive() {
+        // given : 오래된 완료 주문 3건, 오래된 대기 주문 1건, 최근 완료 주문 1건
+        String username = "archive_" + UUID.randomUUID();
+        Order old1 = save(username, "완료", 100);
+        Order old2 = save(username, "완료", 100);
+        Order old3 = save(username, "완료", 100);
+        Order pending = save(username, "대기", 100);
+        Order recent = save(username, "완료", 0);
+
+        // when
+        int archived = archiver.archive(LocalDateTime.now().minusDays(30));
+
+        // then : batch-size=2 -> 여러 번 나눠서 읽고 삭제
+        assertThat(archived).isGreaterThanOrEqualTo(3);
+        assertThat(orderRepository.findAllById(List.of(old1.getId(), old2.getId(), old3.getId()))).isEmpty();
+        assertThat(orderRepository.findById(pending.getId())).isPresent();
+        assertThat(orderRepository.findById(recent.getId())).isPresent();
+
+        assertThat(archiver.findArchived(username))
+            .extracting(ArchivedOrder::id)
+            .containsExactly(old1.getId(), old2.getId(), old3.getId());
+    }
+
+    private Order save(String username, String payStatus, int daysAgo) {
+        Order order = new Order();
+        order.setUsername(username);
+        order.setPayStatus(payStatus);
+        order.setCreatedAt(LocalDateTime.now().minusDays(daysAgo));
+        return orderRepository.save(order);
+    }
+}
@@ -0,0 +1,144 @@
+package hello.springtx.order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Slf4j
+@SpringBootTest(properties = "springtx.order.bulk-chunk-size=2")
+class OrderBulkServiceTest {
+
+    @Autowired
+    OrderBulkService bulkService;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Test
+    void completePending() {
+        // given : 대기 주문 5건 (chunk 2 -> 트랜잭션 3번)
+        String username = "bulk_completePending";
+        List<Long> ids = pendingOrders(username, 5);
+
+        // when
+        int updated = bulkService.completePending(username);
+
+        // then
+        assertThat(updated).isEqualTo(5);
+        assertThat(orderRepository.findSummariesByUsernameOrderById(username))
+            .extracting(OrderSummary::getId).containsExactlyElementsOf(ids);
+        assertThat(orderRepository.findSummariesByUsernameOrderById(username))
+            .extracting(OrderSummary::getPayStatus).containsOnly("완료");
+        assertThat(bulkService.completePending(username)).isZero();
+    }
+
+    @Test
+    void expirePending() {
+        // given : 2건은 오래된 대기 주문, 1건은 최근 대기 주문
+        String username = "bulk_expirePending";
+        List<Long> ids = pendingOrders(username, 3);
+        jdbcTemplate.update("update orders set created_at = ? where id in (?, ?)",
+            LocalDateTime.now().minusDays(10), ids.get(0), ids.get(1));
+
+        // when
+        int updated = bulkService.expirePending(LocalDateTime.now().minusDays(1));
+
+        // then
+        assertThat(updated).isEqualTo(2);
+        assertThat(orderRepository.findById(ids.get(0)).get().getPayStatus()).isEqualTo("만료");
+        assertThat(orderRepository.findById(ids.get(1)).get().getPayStatus()).isEqualTo("만료");
+        assertThat(orderRepository.findById(ids.get(2)).get().getPayStatus()).isEqualTo("대기");
+    }
+
+    @Test
+    void refreshManagedInOuterTransaction() {
+        String username = "bulk_refreshManaged";
+        List<Long> ids = pendingOrders(username, 3);
+
+        String status = new TransactionTemplate(txManager).execute(tx -> {
+            Order managed = orderRepository.findById(ids.get(0)).get();
+            assertThat(managed.getPayStatus()).isEqualTo("대기");
+
+            bulkService.completePending(username);
+
+            // 바깥 트랜잭션의 영속성 컨텍스트에 있던 주문도 새 상태를 본다.
+            return managed.getPayStatus();
+        });
+
+        assertThat(status).isEqualTo("완료");
+    }
+
+    @Test
+    void keepUnflushedChangesInOuterTransaction() {
+        String username = "bulk_unflushed";
+        List<Long> ids = pendingOrders(username, 3);
+
+        Order result = new TransactionTemplate(txManager).execute(tx -> {
+            // 바깥 트랜잭션에서 주문을 바꾸고 flush 하지 않은 상태
+            Order managed = orderRepository.findById(ids.get(0)).get();
+            managed.setAmount(999L);
+
+            bulkService.completePending(username);
+            return managed;
+        });
+
+        // refresh 가 바깥 트랜잭션의 변경을 덮어쓰지 않는다.
+        assertThat(result.getPayStatus()).isEqualTo("완료");
+        assertThat(result.getAmount()).isEqualTo(999L);
+        assertThat(orderRepository.findById(ids.get(0)).get().getAmount()).isEqualTo(999L);
+    }
+
+    @Test
+    void runInOuterTransactionHoldingRowLock() {
+        String username = "bulk_locked";
+        List<Long> ids = pendingOrders(username, 3);
+
+        new TransactionTemplate(txManager).executeWithoutResult(tx -> {
+            // 바깥 트랜잭션이 주문 row 를 update 해서 락을 잡고 있다.
+            Order managed = orderRepository.findById(ids.get(0)).get();
+            managed.setAmount(500L);
+            orderRepository.flush();
+
+            // 같은 트랜잭션에서 실행되므로 락을 기다리지 않는다.
+            long start = System.nanoTime();
+            assertThat(bulkService.completePending(username)).isEqualTo(3);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+            assertThat(managed.getPayStatus()).isEqualTo("완료");
+
+            tx.setRollbackOnly();
+        });
+
+        // 바깥 트랜잭션과 함께 롤백된다.
+        assertThat(orderRepository.findSummariesByUsernameOrderById(username))
+            .extracting(OrderSummary::getPayStatus).containsOnly("대기");
+    }
+
+    // 계좌가 없는 사용자의 금액 주문 -> 잔고 부족 -> 대기 상태로 커밋
+    private List<Long> pendingOrders(String username, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setUsername(username);
+            order.setAmount(100L);
+            assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+            ids.add(order.getId());
+        }
+        return ids;
+    }
+}
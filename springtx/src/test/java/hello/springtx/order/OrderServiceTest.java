@@ -15,6 +15,10 @@ class OrderServiceTest {
     OrderService orderService;
     @Autowired
     OrderRepository orderRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    AccountService accountService;
 
     @Test
     void order() throws NotEnoughMoneyException {
@@ -70,4 +74,22 @@ class OrderServiceTest {
         Assertions.assertThat(findOrder.getPayStatus()).isEqualTo("대기");
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void bizExceptionNotDebited() {
+        // given : 잔고가 충분한 "잔고부족" 계좌
+        accountService.deposit("잔고부족", 10_000L);
+        long before = accountRepository.findById("잔고부족").get().getBalance();
+        Order order = new Order();
+        order.setUsername("잔고부족");
+        order.setAmount(1_000L);
+
+        // when
+        Assertions.assertThatThrownBy(() -> orderService.order(order))
+            .isInstanceOf(NotEnoughMoneyException.class);
+
+        // then : 대기 주문은 커밋되지만 잔고는 그대로
+        Assertions.assertThat(orderRepository.findById(order.getId()).get().getPayStatus()).isEqualTo("대기");
+        Assertions.assertThat(accountRepository.findById("잔고부족").get().getBalance()).isEqualTo(before);
+    }
+}
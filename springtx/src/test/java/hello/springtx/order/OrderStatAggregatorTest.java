@@ -0,0 +1,87 @@
+package hello.springtx.order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Slf4j
+@SpringBootTest
+class OrderStatAggregatorTest {
+
+    @Autowired
+    OrderStatAggregator aggregator;
+    @Autowired
+    OrderStatRepository statRepository;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    AccountService accountService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void upsertDelta() {
+        // when : 같은 key 의 증분이 두 번의 flush 로 누적된다. (insert -> update)
+        aggregator.onEvents(List.of(new OrderEvent(1L, "stat_upsert", "완료", 100L),
+            new OrderEvent(2L, "stat_upsert", "대기", 50L)));
+        aggregator.flush();
+        aggregator.onEvents(List.of(new OrderEvent(3L, "stat_upsert", "완료", null)));
+        aggregator.flush();
+
+        // then
+        OrderStat stat = find(OrderStat.USERNAME, "stat_upsert").get();
+        assertThat(stat.getOrderCount()).isEqualTo(3);
+        assertThat(stat.getTotalAmount()).isEqualTo(150);
+        assertThat(statRepository.findByDimensionOrderByDimensionKey(OrderStat.PAY_STATUS))
+            .extracting(OrderStat::getDimensionKey).contains("완료", "대기");
+    }
+
+    @Test
+    void afterCommitAndReconcile() throws Exception {
+        // given
+        String username = "stat_afterCommit";
+        accountService.deposit(username, 1000);
+
+        // when : 커밋된 주문의 증분이 집계에 반영된다.
+        for (int i = 0; i < 2; i++) {
+            Order order = new Order();
+            order.setUsername(username);
+            order.setAmount(300L);
+            orderService.order(order);
+        }
+        OrderStat stat = awaitStat(username, 2);
+
+        // then
+        assertThat(stat.getTotalAmount()).isEqualTo(600);
+
+        // 집계가 틀어져도 재계산으로 orders 기준 값이 된다.
+        jdbcTemplate.update("update order_stat set order_count = 99 where dimension = ? and dimension_key = ?",
+            OrderStat.USERNAME, username);
+        aggregator.reconcile();
+        OrderStat reconciled = find(OrderStat.USERNAME, username).get();
+        assertThat(reconciled.getOrderCount()).isEqualTo(2);
+        assertThat(reconciled.getTotalAmount()).isEqualTo(600);
+    }
+
+    private OrderStat awaitStat(String username, long count) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            aggregator.flush();
+            Optional<OrderStat> stat = find(OrderStat.USERNAME, username);
+            if (stat.isPresent() && stat.get().getOrderCount() == count) {
+                return stat.get();
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("order_stat 에 반영되지 않았습니다. username=" + username);
+    }
+
+    private Optional<OrderStat> find(String dimension, String key) {
+        return statRepository.findById(new OrderStat.Key(dimension, key));
+    }
+}
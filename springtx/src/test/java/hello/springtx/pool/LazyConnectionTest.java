@@ -0,0 +1,91 @@
+package hello.springtx.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * SQL 을 실행하지 않는 트랜잭션은 커넥션 풀을 사용하지 않는다.
+ */
+@Slf4j
+@SpringBootTest(properties = "springtx.pool.lazy-connection.enabled=true")
+class LazyConnectionTest {
+
+    @Autowired
+    NoSqlService noSqlService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LazyConnectionTracker tracker;
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void noSqlTransaction() throws Exception {
+        // given
+        assertThat(dataSource).isInstanceOf(LazyConnectionDataSourceProxy.class);
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        long untouched = tracker.getUntouchedCount();
+
+        // when
+        int activeInTx = noSqlService.activeConnections(hikari);
+        int activeInReadOnlyTx = noSqlService.activeConnectionsReadOnly(hikari);
+
+        // then : 트랜잭션은 활성화되었지만 커넥션은 빌리지 않았다.
+        assertThat(activeInTx).isZero();
+        assertThat(activeInReadOnlyTx).isZero();
+        assertThat(tracker.getUntouchedCount()).isEqualTo(untouched + 2);
+    }
+
+    @Test
+    void sqlTransaction() {
+        // given
+        long acquired = tracker.getAcquiredCount();
+
+        // when : joinV1 + 로그 저장(REQUIRES_NEW) -> 물리 트랜잭션 2개 모두 커넥션 사용
+        memberService.joinV1("lazyConnection_sqlTransaction");
+
+        // then
+        assertThat(memberRepository.find("lazyConnection_sqlTransaction")).isPresent();
+        assertThat(tracker.getAcquiredCount()).isGreaterThanOrEqualTo(acquired + 2);
+    }
+
+    @TestConfiguration
+    static class LazyConnectionTestConfig {
+
+        @Bean
+        NoSqlService noSqlService() {
+            return new NoSqlService();
+        }
+    }
+
+    @Slf4j
+    static class NoSqlService {
+
+        @Transactional
+        public int activeConnections(HikariDataSource hikari) {
+            assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+            return hikari.getHikariPoolMXBean().getActiveConnections();
+        }
+
+        @Transactional(readOnly = true)
+        public int activeConnectionsReadOnly(HikariDataSource hikari) {
+            assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+            return hikari.getHikariPoolMXBean().getActiveConnections();
+        }
+    }
+}
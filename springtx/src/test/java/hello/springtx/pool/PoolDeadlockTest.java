@@ -0,0 +1,61 @@
+package hello.springtx.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * 커넥션 풀 1개 + REQUIRES_NEW 재현
+ * memberService(커넥션1 보유) -> logRepository.save(REQUIRES_NEW, 커넥션2 필요) -> 풀에 남은 커넥션이 없다.
+ * 히카리 connection-timeout 이 없다면 영원히 기다린다. (threads=1 × (depth=2 - 1) >= pool=1)
+ */
+@Slf4j
+@SpringBootTest(properties = {
+    "spring.datasource.hikari.maximum-pool-size=1",
+    "spring.datasource.hikari.connection-timeout=250",
+    "springtx.pool.auto-sizing.enabled=true",
+    "springtx.pool.auto-sizing.min-size=1",
+    "springtx.pool.auto-sizing.max-size=4",
+    "springtx.pool.auto-sizing.headroom=1",
+    "springtx.pool.auto-sizing.interval=1h"
+})
+class PoolDeadlockTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    AdaptivePoolSizer poolSizer;
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void requiresNewDeadlock_thenAutoSizing() throws Exception {
+        // given
+        String username = "poolDeadlock";
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        assertThat(AdaptivePoolSizer.isNestingDeadlockPossible(1, 2, 1)).isTrue();
+
+        // when : 내부 트랜잭션이 커넥션을 얻지 못한다. -> 외부 트랜잭션까지 롤백
+        assertThatThrownBy(() -> memberService.joinV1(username))
+            .isInstanceOf(CannotCreateTransactionException.class);
+        assertThat(memberRepository.find(username)).isEmpty();
+
+        // then : 관찰된 depth=2 를 기준으로 풀 크기를 늘린다. 1 × 2 + headroom 1 = 3
+        poolSizer.adjust();
+        assertThat(hikari.getHikariConfigMXBean().getMaximumPoolSize()).isEqualTo(3);
+
+        memberService.joinV1(username);
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+}
@@ -0,0 +1,77 @@
+package hello.springtx.propagation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class LogRetentionTest {
+
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    LogRetentionJob retentionJob;
+    @Autowired
+    LogTables logTables;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void purgeExpiredBuckets() {
+        // given
+        Log oldLog = new Log("retention_old");
+        oldLog.setCreatedAt(LocalDateTime.now().minusDays(40));
+        logRepository.save(oldLog);
+        logRepository.save(new Log("retention_recent"));
+
+        assertThat(oldLog.getBucket()).isEqualTo(LocalDate.now().minusDays(40));
+        assertThat(logRepository.find("retention_old", 30)).isEmpty(); // 최근 bucket 만 조회
+        assertThat(logRepository.find("retention_old")).isPresent();
+
+        // when
+        int purged = retentionJob.purge(LocalDate.now().minusDays(29));
+
+        // then
+        assertThat(purged).isPositive();
+        assertThat(logRepository.find("retention_old")).isEmpty();
+        assertThat(logRepository.find("retention_recent", 30)).isPresent();
+    }
+
+    @Test
+    void bucketTablePerDay() {
+        // given
+        LocalDateTime createdAt = LocalDateTime.now().minusDays(50);
+        String table = LogTables.tableName(createdAt.toLocalDate());
+        for (int i = 0; i < 5; i++) {
+            Log oldLog = new Log("retention_table_" + i);
+            oldLog.setCreatedAt(createdAt);
+            logRepository.save(oldLog);
+        }
+
+        // then : createdAt 날짜의 테이블에 저장된다.
+        assertThat(table).isEqualTo("log_" + createdAt.toLocalDate().toString().replace("-", ""));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from " + table
+            + " where message like 'retention_table_%'", Long.class)).isEqualTo(5);
+
+        // when : 테이블을 통째로 지운다.
+        retentionJob.purge(LocalDate.now().minusDays(29));
+
+        // then
+        assertThat(tableCount(table)).isZero();
+        assertThat(logTables.bucketsBefore(LocalDate.now().minusDays(29))).isEmpty();
+        for (int i = 0; i < 5; i++) {
+            assertThat(logRepository.find("retention_table_" + i)).isEmpty();
+        }
+        assertThat(tableCount(LogTables.tableName(LocalDate.now().plusDays(1)))).isOne(); // 내일 테이블은 미리 만든다.
+    }
+
+    private long tableCount(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from information_schema.tables"
+            + " where table_schema = current_schema and lower(table_name) = ?", Long.class, table);
+    }
+}
@@ -3,6 +3,7 @@ package hello.springtx.propagation;
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -162,7 +163,66 @@ class MemberServiceTest {
         assertTrue(logRepository.find(username).isEmpty());
     }
 
+    /**
+     * memberService.joinAll    @Transactional: ON
+     * memberRepository         saveAll (batch insert)
+     * logRepository            saveAll (batch insert) REQUIRES_NEW
+     *
+     * 이미 존재하는 회원과 요청 안의 중복은 IN 쿼리 한 번으로 걸러낸다.
+     */
+    @Test
+    void joinAll_success() {
+        // given
+        memberService.joinV1("joinAll_success_exist");
+        List<String> usernames = List.of("joinAll_success_1", "joinAll_success_2", "joinAll_success_1",
+            "joinAll_success_exist");
+
+        // when
+        JoinResult result = memberService.joinAll(usernames);
+
+        // then
+        assertThat(result.getJoined()).containsExactly("joinAll_success_1", "joinAll_success_2");
+        assertThat(result.getDuplicates()).containsExactly("joinAll_success_1", "joinAll_success_exist");
+        assertTrue(memberRepository.find("joinAll_success_1").isPresent());
+        assertTrue(logRepository.find("joinAll_success_2").isPresent());
+    }
+
+    /**
+     * JoinMode.ALL_OR_NOTHING
+     * 로그 batch 중 하나라도 실패하면 예외가 외부 트랜잭션까지 전파 -> 회원, 로그 모두 롤백 (outerTxOn_fail)
+     */
+    @Test
+    void joinAll_allOrNothing_fail() {
+        // given
+        List<String> usernames = List.of("joinAll_allOrNothing_fail", "로그예외_joinAll_allOrNothing_fail");
+
+        // when
+        assertThatThrownBy(() -> memberService.joinAll(usernames, JoinMode.ALL_OR_NOTHING))
+            .isInstanceOf(RuntimeException.class);
+
+        // then
+        assertTrue(memberRepository.find("joinAll_allOrNothing_fail").isEmpty());
+        assertTrue(logRepository.find("joinAll_allOrNothing_fail").isEmpty());
+        assertTrue(memberRepository.find("로그예외_joinAll_allOrNothing_fail").isEmpty());
+    }
 
+    /**
+     * JoinMode.PER_ITEM
+     * 로그 batch 실패 시 건별로 다시 저장 -> 실패한 로그만 제외, 회원은 모두 저장 (recoverException_success)
+     */
+    @Test
+    void joinAll_perItem() {
+        // given
+        List<String> usernames = List.of("joinAll_perItem", "로그예외_joinAll_perItem");
 
+        // when
+        JoinResult result = memberService.joinAll(usernames, JoinMode.PER_ITEM);
 
-}
\ No newline at end of file
+        // then
+        assertThat(result.getFailedLogs()).containsExactly("로그예외_joinAll_perItem");
+        assertTrue(memberRepository.find("joinAll_perItem").isPresent());
+        assertTrue(logRepository.find("joinAll_perItem").isPresent());
+        assertTrue(memberRepository.find("로그예외_joinAll_perItem").isPresent());
+        assertTrue(logRepository.find("로그예외_joinAll_perItem").isEmpty());
+    }
+}
@@ -0,0 +1,77 @@
+package hello.springtx.propagation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderService;
+import hello.springtx.order.OrderSummary;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class ProjectionTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Test
+    void memberAndLogView() {
+        // given
+        String username = "projection_memberAndLogView";
+        memberService.joinV1(username);
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long entityLoads = statistics.getEntityLoadCount();
+
+        // when
+        MemberView member = memberRepository.findView(username).get();
+        List<LogView> logs = logRepository.findViews(username);
+
+        // then : DTO 로만 조회 -> 엔티티 로딩 없음
+        assertThat(member.username()).isEqualTo(username);
+        assertThat(member.id()).isNotNull();
+        assertThat(logs).extracting(LogView::message).containsExactly(username);
+        assertThat(logs.get(0).createdAt()).isNotNull();
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(entityLoads);
+    }
+
+    @Test
+    void memberViewEmpty() {
+        assertThat(memberRepository.findView("projection_none")).isEmpty();
+        assertThat(logRepository.findViews("projection_none")).isEmpty();
+    }
+
+    @Test
+    void orderSummary() throws NotEnoughMoneyException {
+        // given
+        String username = "projection_orderSummary";
+        Order order = new Order();
+        order.setUsername(username);
+        orderService.order(order);
+
+        // when
+        List<OrderSummary> summaries = orderRepository.findSummariesByUsernameOrderById(username);
+
+        // then
+        assertThat(summaries).hasSize(1);
+        assertThat(summaries.get(0).getId()).isEqualTo(order.getId());
+        assertThat(summaries.get(0).getPayStatus()).isEqualTo("완료");
+        assertThat(summaries.get(0).getAmount()).isNull(); // 금액 없는 주문
+    }
+}
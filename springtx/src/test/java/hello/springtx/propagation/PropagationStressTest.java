@@ -0,0 +1,191 @@
+package hello.springtx.propagation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+
+/**
+ * MemberServiceTest, BasicTxTest 의 전파 시나리오를 여러 스레드에서 동시에 실행한다.
+ * 작은 커넥션 풀에서 경합이 생겨도 시나리오별 결과(데이터 정합성)가 단일 스레드와 같아야 한다.
+ *
+ * 스레드 수 × (중첩 깊이 2 - 1) < 풀 크기 -> 커넥션 풀 데드락이 없어야 한다. (AdaptivePoolSizer)
+ * bulkhead 는 끈다. 작은 풀에 맞춰 회원 가입 한도가 1 이 되면 동시 실행(REQUIRES_NEW 경합)이 일어나지 않는다.
+ * ./gradlew test --tests '*PropagationStressTest' -Dstress.threads=8 -Dstress.iterations=500 (풀 크기도 함께 조정)
+ */
+@Slf4j
+@SpringBootTest(properties = {
+    "spring.datasource.hikari.maximum-pool-size=6",
+    "spring.datasource.hikari.connection-timeout=5000",
+    "springtx.bulkhead.enabled=false",
+    "logging.level.org.springframework.transaction.interceptor=INFO",
+    "logging.level.org.springframework.orm.jpa.JpaTransactionManager=INFO",
+    "logging.level.org.hibernate.resource.transaction=INFO",
+    "logging.level.hello.springtx=WARN"
+})
+class PropagationStressTest {
+
+    static final int THREADS = Integer.getInteger("stress.threads", 4);
+    static final int ITERATIONS = Integer.getInteger("stress.iterations", 25);
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    enum Scenario {
+        OUTER_TX_ON_SUCCESS, // joinV1 -> 회원 O, 로그 O
+        OUTER_TX_ON_FAIL,    // joinV1(로그예외) -> RuntimeException, 회원 X, 로그 X
+        RECOVER_EXCEPTION,   // joinV2(로그예외) -> REQUIRES_NEW 로 복구, 회원 O, 로그 X
+        INNER_ROLLBACK,      // 내부 롤백 + 외부 커밋 -> UnexpectedRollbackException, 회원 X
+        OUTER_ROLLBACK       // 내부 커밋 + 외부 롤백 -> 회원 X
+    }
+
+    record Execution(Scenario scenario, String username, Throwable error) {
+    }
+
+    @Test
+    void concurrentPropagationScenarios() throws InterruptedException {
+        Queue<Execution> executions = new ConcurrentLinkedQueue<>();
+        Map<Scenario, LongAdder> unexpectedRollbacks = new ConcurrentHashMap<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                await(start);
+                for (int i = 0; i < ITERATIONS; i++) {
+                    Scenario scenario = Scenario.values()[ThreadLocalRandom.current().nextInt(Scenario.values().length)];
+                    String username = scenarioUsername(scenario, thread, i);
+                    Throwable error = null;
+                    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        run(scenario, username);
+                    } catch (Throwable e) {
+                        error = e;
+                        if (e instanceof UnexpectedRollbackException) {
+                            unexpectedRollbacks.computeIfAbsent(scenario, key -> new LongAdder()).increment();
+                        }
+                    }
+                    inFlight.decrementAndGet();
+                    executions.add(new Execution(scenario, username, error));
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        if (!executor.awaitTermination(2, TimeUnit.MINUTES)) {
+            failWithThreadDump();
+        }
+        long elapsed = System.nanoTime() - begin;
+        log.warn("stress threads={} ops={} throughput={}/s peakInFlight={} unexpectedRollbacks={}", THREADS,
+            executions.size(), String.format("%.1f", executions.size() / (elapsed / 1_000_000_000.0)),
+            peakInFlight.get(), unexpectedRollbacks);
+
+        assertThat(executions).hasSize(THREADS * ITERATIONS);
+        // 시나리오가 실제로 동시에 실행되어야 경합을 검증한다.
+        assertThat(peakInFlight.get()).isGreaterThan(1);
+        List<String> violations = new ArrayList<>();
+        for (Execution execution : executions) {
+            verify(execution, violations);
+        }
+        assertThat(violations).isEmpty();
+        // UnexpectedRollbackException 은 INNER_ROLLBACK 에서만 발생해야 한다.
+        assertThat(unexpectedRollbacks.keySet()).allMatch(scenario -> scenario == Scenario.INNER_ROLLBACK);
+    }
+
+    private void run(Scenario scenario, String username) {
+        switch (scenario) {
+            case OUTER_TX_ON_SUCCESS, OUTER_TX_ON_FAIL -> memberService.joinV1(username);
+            case RECOVER_EXCEPTION -> memberService.joinV2(username);
+            case INNER_ROLLBACK -> {
+                TransactionStatus outer = txManager.getTransaction(new DefaultTransactionAttribute());
+                TransactionStatus inner = txManager.getTransaction(new DefaultTransactionAttribute());
+                memberRepository.save(new Member(username));
+                txManager.rollback(inner);
+                txManager.commit(outer);
+            }
+            case OUTER_ROLLBACK -> {
+                TransactionStatus outer = txManager.getTransaction(new DefaultTransactionAttribute());
+                TransactionStatus inner = txManager.getTransaction(new DefaultTransactionAttribute());
+                memberRepository.save(new Member(username));
+                txManager.commit(inner);
+                txManager.rollback(outer);
+            }
+        }
+    }
+
+    private void verify(Execution execution, List<String> violations) {
+        boolean memberExists = memberRepository.find(execution.username()).isPresent();
+        boolean logExists = logRepository.find(execution.username()).isPresent();
+        Throwable error = execution.error();
+
+        boolean ok = switch (execution.scenario()) {
+            case OUTER_TX_ON_SUCCESS -> error == null && memberExists && logExists;
+            case OUTER_TX_ON_FAIL -> error instanceof RuntimeException && !memberExists && !logExists;
+            case RECOVER_EXCEPTION -> error == null && memberExists && !logExists;
+            case INNER_ROLLBACK -> error instanceof UnexpectedRollbackException && !memberExists;
+            case OUTER_ROLLBACK -> error == null && !memberExists;
+        };
+        if (!ok) {
+            violations.add(execution.scenario() + " " + execution.username() + " member=" + memberExists
+                + " log=" + logExists + " error=" + error);
+        }
+    }
+
+    private String scenarioUsername(Scenario scenario, int thread, int iteration) {
+        String prefix = scenario == Scenario.OUTER_TX_ON_FAIL || scenario == Scenario.RECOVER_EXCEPTION ? "로그예외_" : "";
+        return prefix + "stress_" + scenario + "_" + thread + "_" + iteration + "_" + System.nanoTime();
+    }
+
+    private void failWithThreadDump() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long[] deadlocked = threads.findDeadlockedThreads();
+        StringBuilder dump = new StringBuilder();
+        for (ThreadInfo info : threads.dumpAllThreads(true, true)) {
+            dump.append(info);
+        }
+        fail("stress 테스트가 끝나지 않았습니다. deadlocked=" + Arrays.toString(deadlocked) + "\n" + dump);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package hello.springtx.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Slf4j
+@SpringBootTest
+class QueryStatsTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    QueryStatsRecorder recorder;
+    @Autowired
+    QueryStatsEndpoint endpoint;
+
+    @Test
+    void recordFind() {
+        // given
+        String username = "queryStats_recordFind";
+        memberService.joinV1(username);
+        long before = executionCount("MemberRepository.find");
+
+        // when
+        memberRepository.find(username);
+        logRepository.find(username);
+
+        // then
+        QueryStats memberStats = recorder.getStats("MemberRepository.find");
+        assertThat(memberStats.getExecutionCount()).isEqualTo(before + 1);
+        assertThat(memberStats.getP99Millis()).isGreaterThan(0);
+        assertThat(memberStats.getNPlusOneCount()).isZero(); // 단건 조회 -> SQL 1번
+        assertThat(recorder.getStats("LogRepository.find").getExecutionCount()).isPositive();
+    }
+
+    @Test
+    void nPlusOneDetected() {
+        // given : max-statements-per-query(5) 보다 많은 회원
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            usernames.add("queryStats_nPlusOne_" + i);
+            memberRepository.save(new Member(usernames.get(i)));
+        }
+
+        // when : 조회 한 번 안에서 건별 조회를 반복 (연관관계 지연 로딩과 같은 형태)
+        List<Optional<Member>> members = recorder.record("QueryStatsTest.loop", () ->
+            usernames.stream().map(memberRepository::find).toList());
+
+        // then : 안쪽 조회의 SQL 이 바깥 조회에 합산되어 N+1 로 판단된다.
+        assertThat(members).allSatisfy(member -> assertThat(member).isPresent());
+        QueryStats stats = recorder.getStats("QueryStatsTest.loop");
+        assertThat(stats.getExecutionCount()).isEqualTo(1);
+        assertThat(stats.getNPlusOneCount()).isEqualTo(1);
+    }
+
+    @Test
+    void endpoint() {
+        memberService.joinV1("queryStats_endpoint");
+        memberRepository.find("queryStats_endpoint");
+
+        Map<String, Object> result = endpoint.queryStats();
+        log.info("querystats = {}", result);
+
+        assertThat(result).containsKeys("queries", "hibernate");
+        Map<?, ?> hibernate = (Map<?, ?>) result.get("hibernate");
+        assertThat(hibernate.get("enabled")).isEqualTo(true);
+        assertThat((Long) hibernate.get("entityInsertCount")).isPositive();
+    }
+
+    private long executionCount(String queryName) {
+        QueryStats stats = recorder.getStats(queryName);
+        return stats == null ? 0 : stats.getExecutionCount();
+    }
+}
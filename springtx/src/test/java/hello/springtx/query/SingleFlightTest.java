@@ -0,0 +1,132 @@
+package hello.springtx.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+class SingleFlightTest {
+
+    static final int FOLLOWERS = 4;
+
+    @Autowired
+    SingleFlight singleFlight;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager txManager;
+    @Autowired
+    EntityManager em;
+
+    ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void collapse() throws Exception {
+        // given : leader 의 조회가 끝나지 않은 상태
+        String name = "singleFlight_collapse";
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> loader = () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "result";
+        };
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute(name, "key", loader), executor);
+        awaitCount(() -> singleFlight.getLeaderCount(name), 1);
+
+        // when : 같은 key 로 동시에 조회
+        List<CompletableFuture<String>> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(CompletableFuture.supplyAsync(() -> singleFlight.execute(name, "key", loader), executor));
+        }
+        awaitCount(() -> singleFlight.getCollapsedCount(name), FOLLOWERS);
+        release.countDown();
+
+        // then : 조회는 한 번, 결과는 모두 같다.
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        for (CompletableFuture<String> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void readOnlyTransaction_notCollapsed() throws Exception {
+        // given : 트랜잭션 밖의 leader 가 같은 username 을 조회 중
+        String name = "MemberRepository.find";
+        String username = "singleFlight_readOnly";
+        memberRepository.save(new Member(username));
+        Member leaderMember = new Member(username);
+        long leaderCount = singleFlight.getLeaderCount(name);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Optional<Member>> leader = CompletableFuture.supplyAsync(() ->
+            singleFlight.execute(name, username, () -> {
+                await(release);
+                return Optional.of(leaderMember);
+            }), executor);
+        awaitCount(() -> singleFlight.getLeaderCount(name), leaderCount + 1);
+        long collapsed = singleFlight.getCollapsedCount(name);
+
+        // when : 읽기 전용 트랜잭션 안의 follower
+        TransactionTemplate template = new TransactionTemplate(txManager);
+        template.setReadOnly(true);
+        Boolean managed = template.execute(status -> {
+            Member member = memberRepository.find(username).orElseThrow();
+            return member != leaderMember && em.contains(member);
+        });
+        release.countDown();
+
+        // then : 합치지 않고 자신의 영속성 컨텍스트로 조회한다.
+        assertThat(managed).isTrue();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).containsSame(leaderMember);
+        assertThat(singleFlight.getCollapsedCount(name)).isEqualTo(collapsed);
+    }
+
+    @Test
+    void readWriteTransaction_bypass() {
+        long bypassed = singleFlight.getBypassedCount("MemberRepository.find");
+
+        new TransactionTemplate(txManager).executeWithoutResult(status ->
+            memberRepository.find("singleFlight_readWrite"));
+
+        assertThat(singleFlight.getBypassedCount("MemberRepository.find")).isEqualTo(bypassed + 1);
+    }
+
+    private static void awaitCount(Supplier<Long> count, long expected) throws InterruptedException {
+        for (int i = 0; i < 500 && count.get() < expected; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(count.get()).isEqualTo(expected);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package hello.springtx.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import hello.springtx.cache.MemberWriteBehindCache;
+import hello.springtx.cache.WriteBehindProperties;
+import hello.springtx.order.AccountService;
+import hello.springtx.order.BalanceLedger;
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderBulkService;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.LogTables;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(properties = {"springtx.shard.enabled=true", "springtx.shard.count=3"})
+class ShardRoutingTest {
+
+    static final int COUNT = 3;
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    OrderBulkService bulkService;
+    @Autowired
+    AccountService accountService;
+    @Autowired
+    BalanceLedger ledger;
+    @Autowired
+    ShardRoutingDataSource dataSource;
+    @Autowired
+    PlatformTransactionManager txManager;
+    @Autowired
+    ShardProperties shardProperties;
+
+    @Test
+    void routeByUsername() {
+        for (int i = 0; i < 10; i++) {
+            // given
+            String username = "shard_route_" + i;
+            int shard = ShardContext.shardOf(username, COUNT);
+
+            // when
+            memberService.joinV1(username);
+
+            // then : 회원과 로그가 username 의 샤드에만 저장된다.
+            assertThat(memberRepository.find(username)).isPresent();
+            assertThat(logRepository.find(username)).isPresent();
+            for (int s = 0; s < COUNT; s++) {
+                assertThat(count(s, "select count(*) from member where username = ?", username))
+                    .isEqualTo(s == shard ? 1 : 0);
+                assertThat(count(s, "select count(*) from " + todayLogTable() + " where message = ?", username))
+                    .isEqualTo(s == shard ? 1 : 0);
+            }
+        }
+    }
+
+    @Test
+    void orderRouteByUsername() throws NotEnoughMoneyException {
+        Order order = new Order();
+        order.setUsername("shard_order");
+
+        orderService.order(order);
+
+        int shard = ShardContext.shardOf("shard_order", COUNT);
+        assertThat(count(shard, "select count(*) from orders where id = ?", order.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void crossShardWrite() {
+        // given : 서로 다른 샤드의 username
+        String first = "shard_cross_a";
+        String second = keyInOtherShard(first);
+        TransactionTemplate template = new TransactionTemplate(txManager);
+
+        // when : first 샤드의 트랜잭션에서 second 회원 저장
+        assertThatThrownBy(() -> ShardContext.runIn(ShardContext.shardOf(first, COUNT), () ->
+            template.executeWithoutResult(status -> {
+                memberRepository.save(new Member(first));
+                memberRepository.save(new Member(second));
+            })))
+            .isInstanceOf(CrossShardTransactionException.class);
+
+        // then : 전체 롤백
+        assertThat(memberRepository.find(first)).isEmpty();
+        assertThat(memberRepository.find(second)).isEmpty();
+    }
+
+    @Test
+    void crossShardJoin() {
+        String first = "shard_join_a";
+        String second = keyInOtherShard(first);
+        TransactionTemplate template = new TransactionTemplate(txManager);
+
+        // first 샤드의 트랜잭션에 second 샤드의 조회/가입이 참여할 수 없다.
+        assertThatThrownBy(() -> ShardContext.runIn(ShardContext.shardOf(first, COUNT), () ->
+            template.executeWithoutResult(status -> memberRepository.find(second))))
+            .isInstanceOf(CrossShardTransactionException.class);
+        assertThatThrownBy(() -> ShardContext.runIn(ShardContext.shardOf(first, COUNT), () ->
+            template.executeWithoutResult(status -> memberService.joinV1(second))))
+            .isInstanceOf(CrossShardTransactionException.class);
+        assertThat(memberRepository.find(second)).isEmpty();
+    }
+
+    @Test
+    void idsUniqueAcrossShards() {
+        // given : 샤드마다 allocationSize(50) 보다 많은 회원을 번갈아 저장한다. (id 블록을 여러 번 받는다)
+        int perShard = 120;
+        int[] saved = new int[COUNT];
+        for (int i = 0; saved[0] < perShard || saved[1] < perShard || saved[2] < perShard; i++) {
+            String username = "shard_id_" + i;
+            int shard = ShardContext.shardOf(username, COUNT);
+            if (saved[shard] < perShard) {
+                ShardContext.runIn(shard, () -> memberRepository.save(new Member(username)));
+                saved[shard]++;
+            }
+        }
+
+        // then : 전체 샤드에서 id 가 겹치지 않고 모두 양수
+        List<Long> ids = new ArrayList<>();
+        for (int s = 0; s < COUNT; s++) {
+            ids.addAll(new JdbcTemplate(dataSource.getShard(s)).queryForList("select id from member", Long.class));
+        }
+        assertThat(ids).hasSizeGreaterThanOrEqualTo(perShard * COUNT);
+        assertThat(new HashSet<>(ids)).hasSameSizeAs(ids);
+        assertThat(ids).allMatch(id -> id > 0);
+    }
+
+    @Test
+    void ledgerReadsUsernameShard() {
+        // given : 0번이 아닌 샤드의 계좌
+        String username = keyInOtherShard("shard_ledger");
+        if (ShardContext.shardOf(username, COUNT) == 0) {
+            username = keyInOtherShard(username);
+        }
+        accountService.deposit(username, 5000L);
+        ledger.evict(username);
+
+        // then : username 의 샤드에서 잔고를 읽는다.
+        assertThat(ledger.getBalance(username)).isEqualTo(5000L);
+    }
+
+    @Test
+    void expirePendingAllShards() {
+        // given : 샤드마다 대기 주문
+        LocalDateTime old = LocalDateTime.now().minusYears(10);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; ids.size() < COUNT; i++) {
+            String username = "shard_expire_" + i;
+            int shard = ShardContext.shardOf(username, COUNT);
+            if (count(shard, "select count(*) from orders where username like ?", "shard_expire_%") == 0) {
+                Order order = new Order();
+                order.setUsername(username);
+                order.setPayStatus("대기");
+                order.setCreatedAt(old);
+                ShardContext.runIn(shard, () -> orderRepository.save(order));
+                ids.add(order.getId());
+            }
+        }
+
+        // when
+        bulkService.expirePending(old.plusDays(1));
+
+        // then : 모든 샤드의 주문이 만료
+        for (int s = 0; s < COUNT; s++) {
+            assertThat(count(s, "select count(*) from orders where username like ? and pay_status = '만료'",
+                "shard_expire_%")).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void writeBehindFlushPerShard() {
+        // given : 모든 샤드의 회원이 섞인 write-behind 대기 목록
+        WriteBehindProperties properties = new WriteBehindProperties();
+        properties.setDurability(WriteBehindProperties.Durability.NONE);
+        MemberWriteBehindCache cache = new MemberWriteBehindCache(memberRepository, txManager, properties,
+            shardProperties);
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            usernames.add("shard_writeBehind_" + i);
+            cache.save(new Member("shard_writeBehind_" + i));
+        }
+
+        // when
+        cache.flush();
+
+        // then : 샤드마다 나눠서 저장한다. (다른 샤드의 회원 때문에 실패하거나 버려지지 않는다)
+        assertThat(cache.getDroppedCount()).isZero();
+        assertThat(cache.pendingCount()).isZero();
+        for (String username : usernames) {
+            int shard = ShardContext.shardOf(username, COUNT);
+            for (int s = 0; s < COUNT; s++) {
+                assertThat(count(s, "select count(*) from member where username = ?", username))
+                    .isEqualTo(s == shard ? 1 : 0);
+            }
+        }
+    }
+
+    @Test
+    void groupCommitPerShard() throws Exception {
+        // given : 모든 샤드의 로그를 한 번에 group commit
+        List<String> messages = new ArrayList<>();
+        List<CompletableFuture<Log>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            messages.add("shard_groupCommit_" + i);
+            futures.add(logRepository.saveGrouped("shard_groupCommit_" + i));
+        }
+
+        // when
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        // then : 각 로그가 message 의 샤드에 저장된다.
+        for (String message : messages) {
+            int shard = ShardContext.shardOf(message, COUNT);
+            for (int s = 0; s < COUNT; s++) {
+                assertThat(count(s, "select count(*) from " + todayLogTable() + " where message = ?", message))
+                    .isEqualTo(s == shard ? 1 : 0);
+            }
+        }
+    }
+
+    private String keyInOtherShard(String key) {
+        int shard = ShardContext.shardOf(key, COUNT);
+        for (int i = 0; ; i++) {
+            String candidate = key + "_" + i;
+            if (ShardContext.shardOf(candidate, COUNT) != shard) {
+                return candidate;
+            }
+        }
+    }
+
+    private String todayLogTable() {
+        return LogTables.tableName(LocalDate.now());
+    }
+
+    private long count(int shard, String sql, Object arg) {
+        return new JdbcTemplate(dataSource.getShard(shard)).queryForObject(sql, Long.class, arg);
+    }
+}
@@ -0,0 +1,123 @@
+package hello.springtx.tx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Slf4j
+@SpringBootTest(properties = "springtx.tx.group-commit.window=50ms")
+class GroupCommitExecutorTest {
+
+    @Autowired
+    GroupCommitExecutor groupCommit;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Test
+    void commitTogether() throws Exception {
+        // given
+        long groupsBefore = groupCommit.getGroupCount();
+
+        // when
+        List<CompletableFuture<Log>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(logRepository.saveGrouped("groupCommit-" + i));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        // then: 커밋 이후 완료되므로 바로 조회된다.
+        for (int i = 0; i < 20; i++) {
+            assertThat(logRepository.find("groupCommit-" + i)).isPresent();
+        }
+        long groups = groupCommit.getGroupCount() - groupsBefore;
+        log.info("items=20 groups={}", groups);
+        assertThat(groups).isLessThan(20);
+    }
+
+    @Test
+    void failingItemDoesNotPoisonGroup() throws Exception {
+        // given
+        long retriedBefore = groupCommit.getRetriedCount();
+
+        // when
+        CompletableFuture<Log> ok1 = logRepository.saveGrouped("groupCommitOk-1");
+        CompletableFuture<Log> failed = logRepository.saveGrouped("groupCommit-로그예외");
+        CompletableFuture<Log> ok2 = logRepository.saveGrouped("groupCommitOk-2");
+
+        // then
+        assertThat(ok1.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        assertThat(ok2.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(RuntimeException.class);
+
+        assertThat(logRepository.find("groupCommitOk-1")).isPresent();
+        assertThat(logRepository.find("groupCommitOk-2")).isPresent();
+        assertThat(logRepository.find("groupCommit-로그예외")).isEmpty();
+        assertThat(groupCommit.getRetriedCount()).isGreaterThan(retriedBefore);
+    }
+
+    @Test
+    void joinInCallback() throws Exception {
+        // 콜백(thenApply)에서 다음 작업을 submit 하고 join 해도 전용 스레드가 막히지 않는다.
+        CompletableFuture<Long> chained = logRepository.saveGrouped("groupCommitChain-1")
+            .thenApply(first -> logRepository.saveGrouped("groupCommitChain-2").join().getId());
+
+        assertThat(chained.get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(logRepository.find("groupCommitChain-2")).isPresent();
+    }
+
+    @Test
+    void rejectLeftoversOnShutdown() throws Exception {
+        // given : 전용 스레드가 첫 작업에서 멈춰 있고 두 번째 작업은 대기열에 있다.
+        GroupCommitProperties properties = new GroupCommitProperties();
+        properties.setWindow(Duration.ZERO);
+        properties.setShutdownTimeout(Duration.ofMillis(100));
+        GroupCommitExecutor executor = new GroupCommitExecutor(txManager, properties);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = executor.submit(() -> {
+            started.countDown();
+            await(release);
+            return "running";
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+        // when
+        executor.destroy();
+
+        // then : 대기열에 남은 작업은 거절, 실행 중인 작업은 끝까지 처리, 종료 이후 submit 은 거절
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(RejectedExecutionException.class);
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("running");
+        assertThatThrownBy(() -> executor.submit(() -> "after").get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package hello.springtx.tx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberService;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Slf4j
+@SpringBootTest
+class JfrEventTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    OrderService orderService;
+
+    @Test
+    void recordTransactionEvents() throws Exception {
+        // given
+        Path file = Files.createTempFile("springtx", ".jfr");
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(TransactionJfrEvent.class);
+            recording.enable(TransactionBeginJfrEvent.class);
+            recording.enable(TransactionSuspendJfrEvent.class);
+            recording.enable(FlushJfrEvent.class);
+            recording.start();
+
+            // when : joinV1 -> logRepository.save(REQUIRES_NEW) 로 보류, order -> 커밋 시 flush
+            memberService.joinV1("jfr_recordTransactionEvents");
+            Order order = new Order();
+            order.setUsername("jfr_order");
+            orderService.order(order);
+
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // then
+        events.forEach(event -> log.info("jfr event={} name={} duration={}", event.getEventType().getName(),
+            event.hasField("name") ? event.getString("name") : event.getString("transactionName"), event.getDuration()));
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.getEventType().getName()).isEqualTo("hello.springtx.Transaction");
+            assertThat(event.getString("name")).endsWith("MemberService.joinV1");
+            assertThat(event.getString("kind")).isEqualTo("physical");
+            assertThat(event.getString("outcome")).isEqualTo("commit");
+        });
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.getEventType().getName()).isEqualTo("hello.springtx.Transaction");
+            assertThat(event.getString("name")).endsWith("LogRepository.save");
+            assertThat(event.getString("propagation")).isEqualTo("REQUIRES_NEW");
+        });
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.getEventType().getName()).isEqualTo("hello.springtx.TransactionSuspend");
+            assertThat(event.getString("name")).endsWith("MemberService.joinV1");
+        });
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.getEventType().getName()).isEqualTo("hello.springtx.Flush");
+            assertThat(event.getString("transactionName")).endsWith("OrderService.order");
+            assertThat(event.getInt("entityCount")).isPositive();
+        });
+        assertThat(events).anySatisfy(event ->
+            assertThat(event.getEventType().getName()).isEqualTo("hello.springtx.TransactionBegin"));
+    }
+}
@@ -0,0 +1,68 @@
+package hello.springtx.tx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import hello.springtx.propagation.MemberRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@SpringBootTest
+class TransactionTimeoutTest {
+
+    @Autowired
+    SlowService slowService;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    /**
+     * timeout=1초 트랜잭션에서 1초 이상 지난 뒤 쿼리 -> 마감 시각이 지나서 쿼리를 실행하지 않고 실패
+     */
+    @Test
+    void timeout() {
+        assertThatThrownBy(() -> slowService.slowQuery())
+            .satisfies(ex -> assertThat(TransactionTimeoutMetrics.isTimeout(ex)).isTrue());
+
+        assertThat(meterRegistry.find("springtx.transaction.timeouts").counter())
+            .isNotNull()
+            .satisfies(counter -> assertThat(counter.count()).isEqualTo(1));
+    }
+
+    // 메시지가 아니라 예외 타입으로 판단한다.
+    @Test
+    void timeoutByType() {
+        assertThat(TransactionTimeoutMetrics.isTimeout(
+            new RuntimeException(new TransactionTimedOutException("deadline")))).isTrue();
+        assertThat(TransactionTimeoutMetrics.isTimeout(new RuntimeException("transaction timeout expired"))).isFalse();
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        SlowService slowService(MemberRepository memberRepository) {
+            return new SlowService(memberRepository);
+        }
+    }
+
+    @RequiredArgsConstructor
+    static class SlowService {
+
+        private final MemberRepository memberRepository;
+
+        @Transactional(timeout = 1)
+        public void slowQuery() throws InterruptedException {
+            Thread.sleep(1100);
+            memberRepository.find("timeout");
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package hello.springtx.tx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import hello.springtx.propagation.MemberService;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.support.ResourceTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+@Slf4j
+@SpringBootTest(properties = "logging.level.hello.springtx.tx=DEBUG")
+class TransactionTracingTest {
+
+    @Autowired
+    PlatformTransactionManager txManager;
+    @Autowired
+    ResourceTransactionManager resourceTxManager;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    InMemorySpanExporter exporter;
+
+    @BeforeEach
+    void clear() {
+        exporter.spans.clear();
+    }
+
+    /**
+     * BasicTxTest.inner_rollback
+     * 내부(logical) : rollback-only 마크
+     * 외부(physical) : 커밋 요청 -> unexpected-rollback
+     */
+    @Test
+    void inner_rollback() {
+        TransactionStatus outer = txManager.getTransaction(new DefaultTransactionAttribute());
+        TransactionStatus inner = txManager.getTransaction(new DefaultTransactionAttribute());
+        txManager.rollback(inner);
+        assertThatThrownBy(() -> txManager.commit(outer)).isInstanceOf(UnexpectedRollbackException.class);
+
+        assertThat(exporter.spans).hasSize(2);
+        Observation.Context innerSpan = exporter.spans.get(0);
+        Observation.Context outerSpan = exporter.spans.get(1);
+
+        assertThat(tag(innerSpan, "kind")).isEqualTo("logical");
+        assertThat(tag(innerSpan, "outcome")).isEqualTo("rollback-only");
+        assertThat(innerSpan.getParentObservation().getContextView()).isSameAs(outerSpan);
+
+        assertThat(tag(outerSpan, "kind")).isEqualTo("physical");
+        assertThat(tag(outerSpan, "newTransaction")).isEqualTo("true");
+        assertThat(tag(outerSpan, "outcome")).isEqualTo("unexpected-rollback");
+        assertThat(tag(outerSpan, "rollbackOnly")).isEqualTo("true");
+    }
+
+    /**
+     * MemberService.joinV2 (로그예외)
+     * joinV2(physical) -> memberRepository.save(logical, commit)
+     *                  -> logRepository.save(REQUIRES_NEW physical, rollback)
+     */
+    @Test
+    void joinV2_requiresNew() {
+        memberService.joinV2("로그예외_tracing_joinV2");
+
+        Observation.Context join = exporter.spans.stream()
+            .filter(span -> span.getParentObservation() == null || !isTransaction(span.getParentObservation()
+                .getContextView().getName()))
+            .findFirst().orElseThrow();
+        assertThat(tag(join, "outcome")).isEqualTo("commit");
+
+        List<Observation.Context> children = exporter.spans.stream()
+            .filter(span -> span.getParentObservation() != null
+                && span.getParentObservation().getContextView() == join)
+            .toList();
+        assertThat(children).extracting(span -> tag(span, "propagation") + "/" + tag(span, "kind") + "/"
+                + tag(span, "outcome"))
+            .contains("REQUIRED/logical/commit", "REQUIRES_NEW/physical/rollback");
+    }
+
+    /**
+     * 프록시는 원래 빈의 인터페이스를 유지한다. -> ResourceTransactionManager 타입 주입
+     */
+    @Test
+    void keepInterfaces() {
+        assertThat(resourceTxManager).isSameAs(txManager).isInstanceOf(TracingTransactionManager.Traced.class);
+        assertThat(resourceTxManager.getResourceFactory()).isNotNull();
+
+        TransactionStatus status = resourceTxManager.getTransaction(new DefaultTransactionAttribute());
+        resourceTxManager.commit(status);
+        assertThat(exporter.spans).extracting(span -> tag(span, "outcome")).containsExactly("commit");
+    }
+
+    /**
+     * 바깥 트랜잭션 없는 SUPPORTS, NOT_SUPPORTED -> 트랜잭션 없음
+     */
+    @Test
+    void noTransaction() {
+        for (int propagation : new int[]{TransactionDefinition.PROPAGATION_SUPPORTS,
+            TransactionDefinition.PROPAGATION_NOT_SUPPORTED}) {
+            txManager.commit(txManager.getTransaction(new DefaultTransactionAttribute(propagation)));
+        }
+
+        assertThat(exporter.spans).extracting(span -> tag(span, "propagation") + "/" + tag(span, "kind"))
+            .containsExactly("SUPPORTS/none", "NOT_SUPPORTED/none");
+    }
+
+    /**
+     * 시작 순서와 다르게 완료해도 scope 가 남지 않는다.
+     */
+    @Test
+    void completeOutOfOrder() {
+        ObservationRegistry registry = observedRegistry();
+        TracingTransactionManager tracing = new TracingTransactionManager(new StubTransactionManager(), () -> registry);
+
+        TransactionStatus outer = tracing.getTransaction(null);
+        TransactionStatus inner = tracing.getTransaction(null);
+        Observation innerObservation = registry.getCurrentObservation();
+        tracing.commit(outer);
+        assertThat(registry.getCurrentObservation()).isSameAs(innerObservation);
+
+        tracing.commit(inner);
+        assertThat(registry.getCurrentObservationScope()).isNull();
+    }
+
+    /**
+     * 다른 스레드에서 완료된 span 의 scope 는 연 스레드가 다음 호출 때 닫는다.
+     */
+    @Test
+    void completeOnOtherThread() {
+        ObservationRegistry registry = observedRegistry();
+        TracingTransactionManager tracing = new TracingTransactionManager(new StubTransactionManager(), () -> registry);
+
+        TransactionStatus status = tracing.getTransaction(null);
+        CompletableFuture.runAsync(() -> tracing.commit(status)).join();
+
+        TransactionStatus next = tracing.getTransaction(null);
+        assertThat(registry.getCurrentObservation().getContextView().getParentObservation()).isNull();
+        tracing.commit(next);
+        assertThat(registry.getCurrentObservationScope()).isNull();
+    }
+
+    private static ObservationRegistry observedRegistry() {
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(context -> true);
+        return registry;
+    }
+
+    static class StubTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+
+    private static boolean isTransaction(String name) {
+        return TracingTransactionManager.OBSERVATION_NAME.equals(name);
+    }
+
+    private static String tag(Observation.Context context, String key) {
+        return context.getLowCardinalityKeyValue(key).getValue();
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return new InMemorySpanExporter();
+        }
+    }
+
+    static class InMemorySpanExporter implements ObservationHandler<Observation.Context> {
+
+        final List<Observation.Context> spans = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onStop(Observation.Context context) {
+            spans.add(context);
+        }
+
+        @Override
+        public boolean supportsContext(Observation.Context context) {
+            return isTransaction(context.getName());
+        }
+    }
+}